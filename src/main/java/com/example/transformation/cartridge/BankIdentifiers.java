@@ -0,0 +1,171 @@
+package com.example.transformation.cartridge;
+
+/**
+ * IBAN / BIC normalization and validation without regexes.
+ *
+ * Validation is one pass over the chars that skips whitespace and upper-cases on the fly;
+ * the IBAN check digits (ISO 13616 mod-97) are computed in the same pass on the rearranged
+ * number, digit by digit, without building the numeric string or a BigInteger. A value
+ * already in normal form is returned as is (no allocation); otherwise the compacted
+ * String is the only allocation.
+ *
+ * Used by the {@code iban} / {@code bic} value types of mapping.yaml and by
+ * PaymentEnrichmentFunctions.
+ */
+public final class BankIdentifiers {
+
+  private static final int IBAN_MIN_LENGTH = 15;
+  private static final int IBAN_MAX_LENGTH = 34;
+
+  // IBAN length by country (index: (c1 - 'A') * 26 + (c2 - 'A')); 0 = not registered
+  private static final byte[] IBAN_LENGTHS = new byte[26 * 26];
+
+  static {
+    String registry = "AD24AE23AL28AT20AZ28BA20BE16BG22BH22BR29BY28CH21CR22CY28CZ24DE22DK18DO28EE20EG29"
+        + "ES24FI18FO18FR27GB22GE22GI23GL18GR27GT28HR21HU28IE22IL23IQ23IS26IT27JO30KW30KZ20"
+        + "LB28LC32LI21LT20LU20LV21MC27MD24ME22MK19MR27MT31MU30NL18NO15PK24PL28PS29PT25QA29"
+        + "RO24RS22SA24SC31SE24SI19SK24SM27ST25SV28TL23TN24TR26UA29VA22VG24XK20";
+    for (int i = 0; i < registry.length(); i += 4) {
+      int country = (registry.charAt(i) - 'A') * 26 + (registry.charAt(i + 1) - 'A');
+      IBAN_LENGTHS[country] = (byte) Integer.parseInt(registry, i + 2, i + 4, 10);
+    }
+  }
+
+  private BankIdentifiers() {
+  }
+
+  /**
+   * Returns the IBAN without whitespace and in upper case, or null when it is not a valid
+   * IBAN (country code, length for registered countries, check digits).
+   */
+  public static String normalizeIban(CharSequence value) {
+    if (value == null) {
+      return null;
+    }
+    int n = 0;
+    boolean changed = false;
+    int remainder = 0;
+    int country = 0;
+    int checkDigits = 0;
+    for (int i = 0, len = value.length(); i < len; i++) {
+      char c = value.charAt(i);
+      if (c <= ' ') {
+        changed = true;
+        continue;
+      }
+      if (c >= 'a' && c <= 'z') {
+        c -= 'a' - 'A';
+        changed = true;
+      }
+      if (n == IBAN_MAX_LENGTH) {
+        return null;
+      }
+      if (n < 2) {
+        if (c < 'A' || c > 'Z') {
+          return null;
+        }
+        country = country * 26 + (c - 'A');
+      } else if (n < 4) {
+        if (c < '0' || c > '9') {
+          return null;
+        }
+        checkDigits = checkDigits * 10 + (c - '0');
+      } else {
+        int v = alphanumeric(c);
+        if (v < 0) {
+          return null;
+        }
+        remainder = mod97(remainder, v);
+      }
+      n++;
+    }
+    if (n < IBAN_MIN_LENGTH) {
+      return null;
+    }
+    int registered = IBAN_LENGTHS[country];
+    if (registered != 0 && registered != n) {
+      return null;
+    }
+    // Country code and check digits are moved behind the BBAN
+    remainder = mod97(remainder, country / 26 + 10);
+    remainder = mod97(remainder, country % 26 + 10);
+    remainder = (remainder * 100 + checkDigits) % 97;
+    if (remainder != 1) {
+      return null;
+    }
+    return (!changed && value instanceof String s) ? s : compact(value, n);
+  }
+
+  public static boolean isValidIban(CharSequence value) {
+    return normalizeIban(value) != null;
+  }
+
+  /**
+   * Returns the BIC without whitespace and in upper case, or null when it is not a valid
+   * BIC (4 letter institution, 2 letter country, 2 alphanumeric location, optional
+   * 3 alphanumeric branch code).
+   */
+  public static String normalizeBic(CharSequence value) {
+    if (value == null) {
+      return null;
+    }
+    int n = 0;
+    boolean changed = false;
+    for (int i = 0, len = value.length(); i < len; i++) {
+      char c = value.charAt(i);
+      if (c <= ' ') {
+        changed = true;
+        continue;
+      }
+      if (c >= 'a' && c <= 'z') {
+        c -= 'a' - 'A';
+        changed = true;
+      }
+      if (n == 11) {
+        return null;
+      }
+      boolean letter = c >= 'A' && c <= 'Z';
+      if (!(letter || (n >= 6 && c >= '0' && c <= '9'))) {
+        return null;
+      }
+      n++;
+    }
+    if (n != 8 && n != 11) {
+      return null;
+    }
+    return (!changed && value instanceof String s) ? s : compact(value, n);
+  }
+
+  public static boolean isValidBic(CharSequence value) {
+    return normalizeBic(value) != null;
+  }
+
+  /** The {@code n} non-whitespace chars of an already validated value, upper-cased. */
+  private static String compact(CharSequence value, int n) {
+    char[] out = new char[n];
+    int j = 0;
+    for (int i = 0, len = value.length(); i < len; i++) {
+      char c = value.charAt(i);
+      if (c > ' ') {
+        out[j++] = (c >= 'a' && c <= 'z') ? (char) (c - ('a' - 'A')) : c;
+      }
+    }
+    return new String(out);
+  }
+
+  /** 0-9 for digits, 10-35 for A-Z, -1 otherwise. */
+  private static int alphanumeric(char c) {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    }
+    if (c >= 'A' && c <= 'Z') {
+      return c - 'A' + 10;
+    }
+    return -1;
+  }
+
+  /** Appends the decimal digits of {@code v} (0-35) to the number whose remainder is {@code r}. */
+  private static int mod97(int r, int v) {
+    return (v < 10) ? (r * 10 + v) % 97 : (r * 100 + v) % 97;
+  }
+}
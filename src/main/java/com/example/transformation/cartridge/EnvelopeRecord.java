@@ -0,0 +1,146 @@
+package com.example.transformation.cartridge;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only record view of one txInf entry of a bulk envelope: the entry's own fields plus
+ * the request-level sections (header, grpHdr, bulk) shared by every record of the request,
+ * without copying either.
+ *
+ * Reads and iteration match a LinkedHashMap built with {@code putAll(txInf)} followed by a
+ * put of each section: sections shadow txInf fields of the same name (keeping the field's
+ * position) and otherwise follow in section order.
+ *
+ * Entries handed out by iteration are read-only by contract. The view and the shared
+ * sections (see {@link #sections}) reject writes; writers go through an {@link OverlayMap}
+ * over the view, which copies on write, so a rule targeting e.g. header.* changes only its
+ * own record.
+ */
+public final class EnvelopeRecord extends AbstractMap<String, Object> {
+
+  private final Map<String, Object> fields;
+  private final Map<String, Object> sections;
+  private final int size;
+  private Set<Map.Entry<String, Object>> entrySet;
+
+  /**
+   * @param fields the txInf entry (not copied; must not change while the view is in use)
+   * @param sections shared sections built once per request with {@link #sections}
+   */
+  public EnvelopeRecord(Map<String, Object> fields, Map<String, Object> sections) {
+    this.fields = fields;
+    this.sections = sections;
+    int extra = 0;
+    for (String key : sections.keySet()) {
+      if (!fields.containsKey(key)) {
+        extra++;
+      }
+    }
+    this.size = fields.size() + extra;
+  }
+
+  /**
+   * Read-only copy of a request's shared sections (same order, each section made
+   * read-only); null sections are left out. Built once per request.
+   */
+  public static Map<String, Object> sections(Map<String, ? extends Map<?, ?>> sections) {
+    Map<String, Object> shared = new LinkedHashMap<>(sections.size() * 2);
+    for (Map.Entry<String, ? extends Map<?, ?>> e : sections.entrySet()) {
+      if (e.getValue() != null) {
+        shared.put(e.getKey(), Collections.unmodifiableMap(e.getValue()));
+      }
+    }
+    return Collections.unmodifiableMap(shared);
+  }
+
+  @Override
+  public Object get(Object key) {
+    Object v = sections.get(key);
+    return (v != null) ? v : fields.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return sections.containsKey(key) || fields.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    Set<Map.Entry<String, Object>> es = entrySet;
+    if (es == null) {
+      es = new AbstractSet<>() {
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+          return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+      };
+      entrySet = es;
+    }
+    return es;
+  }
+
+  /**
+   * txInf fields first (shadowed ones with the section value), then sections not in txInf.
+   */
+  private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+    private final Iterator<Map.Entry<String, Object>> fieldIt = fields.entrySet().iterator();
+    private Iterator<Map.Entry<String, Object>> sectionIt;
+    private Map.Entry<String, Object> next;
+
+    @Override
+    public boolean hasNext() {
+      if (next != null) {
+        return true;
+      }
+      if (fieldIt.hasNext()) {
+        Map.Entry<String, Object> e = fieldIt.next();
+        Object shared = sections.get(e.getKey());
+        next = (shared == null) ? e : new AbstractMap.SimpleImmutableEntry<>(e.getKey(), shared);
+        return true;
+      }
+      if (sectionIt == null) {
+        sectionIt = sections.entrySet().iterator();
+      }
+      while (sectionIt.hasNext()) {
+        Map.Entry<String, Object> e = sectionIt.next();
+        if (!fields.containsKey(e.getKey())) {
+          next = e;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Map.Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<String, Object> e = next;
+      next = null;
+      return e;
+    }
+  }
+}
@@ -16,10 +16,16 @@ public final class ErrorCodes {
     public static final String MAPPING_READ_FAILED = "mapping.readFailed";
     public static final String MAPPING_DEFINITION_MISSING = "mapping.definitionMissing";
     public static final String MAPPING_SOURCE_MISSING = "mapping.sourceMissing";
+    public static final String MAPPING_SOURCE_TYPE = "mapping.sourceType";
 
     // Request errors
     public static final String REQUEST_BODY_TYPE = "request.bodyType";
     public static final String REQUEST_CARTRIDGE_ID_MISSING = "request.cartridgeIdMissing";
+    public static final String REQUEST_STREAMING_UNSUPPORTED = "request.streamingUnsupported";
+
+    // Bulk errors
+    public static final String BULK_REJECTED = "bulk.rejected";
+    public static final String BULK_RESPONSE_MODE = "bulk.responseMode";
 
     // Enrichment errors
     public static final String ENRICH_RULE_INVALID = "enrich.ruleInvalid";
@@ -27,6 +33,7 @@ public final class ErrorCodes {
     public static final String ENRICH_CALL_MISSING = "enrich.callMissing";
     public static final String ENRICH_CALL_NOT_MAP = "enrich.callNotMap";
     public static final String ENRICH_CALL_FAILED = "enrich.callFailed";
+    public static final String ENRICH_CALL_TIMEOUT = "enrich.callTimeout";
     public static final String ENRICH_READ_FAILED = "enrich.readFailed";
 
     // Validation errors
@@ -38,6 +45,7 @@ public final class ErrorCodes {
     public static final String VALIDATION_NUMBER = "validation.number";
     public static final String VALIDATION_MIN = "validation.min";
     public static final String VALIDATION_MAX = "validation.max";
+    public static final String VALIDATION_TYPE = "validation.type";
 
     // Config errors
     public static final String CONFIG_NOT_FOUND = "config.notFound";
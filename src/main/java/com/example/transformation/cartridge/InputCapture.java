@@ -0,0 +1,48 @@
+package com.example.transformation.cartridge;
+
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Reads request objects from a Jackson token stream keeping only a known set of paths.
+ *
+ * Built once per cartridge from the paths its enrichment and mapping stages read, then
+ * reused for every record of the stream.
+ */
+public final class InputCapture {
+  private final PathTrie trie;
+
+  private InputCapture(PathTrie trie) {
+    this.trie = trie;
+  }
+
+  /**
+   * Captures only the given JSONPath-like paths ($.a.b) and their subtrees. Wildcard/filter
+   * paths capture the whole subtree of their definite prefix.
+   *
+   * @throws IllegalArgumentException if a path does not start with '$.'
+   */
+  public static InputCapture of(Collection<String> paths) {
+    PathTrie.Builder builder = PathTrie.builder();
+    for (String path : paths) {
+      builder.add(JsonPathMini.definitePrefix(path));
+    }
+    return new InputCapture(builder.build());
+  }
+
+  /**
+   * Captures the whole object (used when a stage may read any field).
+   */
+  public static InputCapture all() {
+    return of(java.util.List.of("$"));
+  }
+
+  /**
+   * Reads the object the parser is positioned on (START_OBJECT) up to its END_OBJECT.
+   */
+  public Map<String, Object> read(JsonParser parser) throws IOException {
+    return trie.capture(parser);
+  }
+}
@@ -15,4 +15,12 @@ public class JsonMappingEngine {
     Map<String, Object> out = mappingEngine.map(input, def);
     return MappingEngine.Result.json(out);
   }
+
+  /**
+   * Collect-all variant: violations are added to {@code violations} instead of thrown.
+   */
+  public MappingEngine.Result transform(Object input, MappingDefinition def, ValidationResult violations) {
+    Map<String, Object> out = mappingEngine.map(input, def, violations);
+    return MappingEngine.Result.json(out);
+  }
 }
@@ -1,22 +1,34 @@
 package com.example.transformation.cartridge;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Minimal JSONPath-ish accessor with optimized path parsing.
  *
  * Supported:
  * - $.a.b.c (maps)
- * - $.a.0.b (lists by numeric segment)
+ * - $.a.0.b, $.a[0].b (lists by index)
+ * - $.a[*].b, $.a.*.b (every list element / map value)
+ * - $.a[].b (every list element; a non-list is missing, as before wildcards were added)
+ * - $.a[?(@.type=='X')].b (list elements whose field equals, or with !=, differs from a literal;
+ *   the operator is the first one outside quotes)
  *
- * Not supported: filters, wildcards, predicates.
+ * Paths with a wildcard or filter are indefinite: {@link #get(Object, String)} returns the
+ * list of non-null matches (null if nothing matched). Such a path is split into a definite
+ * prefix, resolved like any other path, and a {@link Selector} applied to the prefix value.
+ *
+ * Not supported: recursive descent, slices, unions, script expressions.
  *
  * Performance optimizations:
  * - Pre-parsed path segments are cached
  * - Integer indices are pre-parsed for list access
  * - No regex compilation at runtime
+ * - Paths can be compiled once into {@link Accessor}/{@link Writer} lambdas
+ *   with the segment walk unrolled (used by compiled mapping plans)
  */
 public final class JsonPathMini {
   private JsonPathMini() {}
@@ -27,19 +39,49 @@ public final class JsonPathMini {
   // Cache for parsed dot-path segments (target paths like a.b.c)
   private static final ConcurrentHashMap<String, String[]> TARGET_PATH_CACHE = new ConcurrentHashMap<>(64);
 
+  // Cache for compiled accessors/writers, keyed by the raw path string
+  private static final ConcurrentHashMap<String, Accessor> ACCESSOR_CACHE = new ConcurrentHashMap<>(64);
+  private static final ConcurrentHashMap<String, Writer> WRITER_CACHE = new ConcurrentHashMap<>(64);
+
+  /**
+   * Compiled read of a single source path. Equivalent to {@link #get(Object, String)}
+   * without the per-call cache lookup and segment loop.
+   */
+  @FunctionalInterface
+  public interface Accessor {
+    Object get(Object root);
+  }
+
+  /**
+   * Compiled write of a single dot-notation target path. Equivalent to
+   * {@link #put(Map, String, Object)} without the per-call cache lookup and segment loop.
+   */
+  @FunctionalInterface
+  public interface Writer {
+    void put(Map<String, Object> root, Object value);
+  }
+
   /**
    * Pre-parsed path representation for fast traversal.
    */
   private static final class ParsedPath {
-    final String[] segments;
+    final String[] segments; // definite prefix (the whole path unless there is a selector)
     final int[] indices; // Pre-parsed integer indices, -1 if not numeric
+    final String prefix; // source path of the definite prefix
+    final Selector selector; // wildcard/filter tail, null for definite paths
 
     ParsedPath(String[] segments) {
+      this(segments, null, null);
+    }
+
+    ParsedPath(String[] segments, String prefix, Selector selector) {
       this.segments = segments;
       this.indices = new int[segments.length];
       for (int i = 0; i < segments.length; i++) {
         this.indices[i] = parseIndex(segments[i]);
       }
+      this.prefix = prefix;
+      this.selector = selector;
     }
 
     private static int parseIndex(String seg) {
@@ -57,6 +99,175 @@ public final class JsonPathMini {
     }
   }
 
+  /**
+   * Compiled tail of an indefinite path, starting at its first wildcard or filter segment.
+   *
+   * Walks a start value (the resolved definite prefix) visiting every match. Missing values
+   * below an expanded element are visited as null, so validations can flag them per element.
+   * Immutable and safe to share across threads.
+   */
+  public static final class Selector {
+    private final Step[] steps;
+
+    private Selector(Step[] steps) {
+      this.steps = steps;
+    }
+
+    /**
+     * Visits every match under {@code start}; returns the number of visited values.
+     */
+    public int forEach(Object start, Consumer<Object> visitor) {
+      return walk(start, 0, visitor);
+    }
+
+    /**
+     * Non-null matches under {@code start}, or null if there are none.
+     */
+    public List<Object> select(Object start) {
+      List<Object> out = new ArrayList<>();
+      walk(start, 0, v -> {
+        if (v != null) {
+          out.add(v);
+        }
+      });
+      return out.isEmpty() ? null : out;
+    }
+
+    private int walk(Object cur, int k, Consumer<Object> visitor) {
+      while (k < steps.length && steps[k].kind == Step.KEY) {
+        cur = step(cur, steps[k].key, steps[k].index);
+        k++;
+      }
+      if (k == steps.length) {
+        visitor.accept(cur);
+        return 1;
+      }
+      Step s = steps[k];
+      int count = 0;
+      if (cur instanceof List<?> list) {
+        for (int i = 0, n = list.size(); i < n; i++) {
+          Object e = list.get(i);
+          if (s.kind != Step.FILTER || s.test(e)) {
+            count += walk(e, k + 1, visitor);
+          }
+        }
+      } else if (cur instanceof Map<?, ?> m && s.kind == Step.WILDCARD) {
+        // '*' also iterates an object's values; the legacy '[]' only matches lists
+        for (Object e : m.values()) {
+          count += walk(e, k + 1, visitor);
+        }
+      }
+      return count;
+    }
+  }
+
+  /**
+   * One parsed segment of a bracketed path.
+   */
+  private static final class Step {
+    static final int KEY = 0;
+    static final int WILDCARD = 1;
+    static final int FILTER = 2;
+    // Legacy '[]': every element of a list, a non-list is missing
+    static final int ELEMENTS = 3;
+
+    final int kind;
+    final String key;
+    final int index;
+    // FILTER only: field path below the element and the literal it is compared with
+    final String[] fieldSegments;
+    final int[] fieldIndices;
+    final String literal;
+    final boolean negate;
+
+    private Step(int kind, String key, String[] fieldSegments, String literal, boolean negate) {
+      this.kind = kind;
+      this.key = key;
+      this.index = (key == null) ? -1 : ParsedPath.parseIndex(key);
+      this.fieldSegments = fieldSegments;
+      this.literal = literal;
+      this.negate = negate;
+      if (fieldSegments == null) {
+        this.fieldIndices = null;
+      } else {
+        this.fieldIndices = new int[fieldSegments.length];
+        for (int i = 0; i < fieldSegments.length; i++) {
+          this.fieldIndices[i] = ParsedPath.parseIndex(fieldSegments[i]);
+        }
+      }
+    }
+
+    static Step key(String key) {
+      return new Step(KEY, key, null, null, false);
+    }
+
+    static Step wildcard() {
+      return new Step(WILDCARD, null, null, null, false);
+    }
+
+    static Step elements() {
+      return new Step(ELEMENTS, null, null, null, false);
+    }
+
+    static Step filter(String[] fieldSegments, String literal, boolean negate) {
+      return new Step(FILTER, null, fieldSegments, literal, negate);
+    }
+
+    boolean test(Object element) {
+      Object v = element;
+      for (int i = 0; i < fieldSegments.length && v != null; i++) {
+        v = step(v, fieldSegments[i], fieldIndices[i]);
+      }
+      boolean equal = v != null && literal.equals(String.valueOf(v));
+      return equal != negate;
+    }
+  }
+
+  /**
+   * True unless the path has a wildcard or filter segment.
+   */
+  public static boolean isDefinite(String path) {
+    return path == null || path.isEmpty() || isBlank(path) || parsePath(path).selector == null;
+  }
+
+  /**
+   * The definite part of a path up to its first wildcard/filter segment ("$" if it starts
+   * with one); the path itself when it is definite.
+   */
+  public static String definitePrefix(String path) {
+    if (path == null || path.isEmpty() || isBlank(path)) {
+      return path;
+    }
+    ParsedPath parsed = parsePath(path);
+    return (parsed.selector == null) ? path : parsed.prefix;
+  }
+
+  /**
+   * The wildcard/filter tail of a path, applied to the value of {@link #definitePrefix(String)};
+   * null for definite paths.
+   */
+  public static Selector selector(String path) {
+    if (path == null || path.isEmpty() || isBlank(path)) {
+      return null;
+    }
+    return parsePath(path).selector;
+  }
+
+  /**
+   * Parsed segments of a source path (empty for "$"). Shared with {@link PathTrie}.
+   * For indefinite paths these are the segments of the definite prefix.
+   */
+  static String[] sourceSegments(String path) {
+    return parsePath(path).segments;
+  }
+
+  /**
+   * Pre-parsed list indices matching {@link #sourceSegments(String)}, -1 if not numeric.
+   */
+  static int[] sourceIndices(String path) {
+    return parsePath(path).indices;
+  }
+
   private static ParsedPath parsePath(String path) {
     return SOURCE_PATH_CACHE.computeIfAbsent(path, JsonPathMini::doParseSourcePath);
   }
@@ -69,11 +280,147 @@ public final class JsonPathMini {
     if ("$".equals(p)) {
       return new ParsedPath(new String[0]);
     }
-    if (p.length() < 3 || p.charAt(0) != '$' || p.charAt(1) != '.') {
+    if (p.length() < 3 || p.charAt(0) != '$' || (p.charAt(1) != '.' && p.charAt(1) != '[')) {
       throw new IllegalArgumentException("Only paths starting with '$.' are supported. Got: " + path);
     }
-    // Manual split for performance (avoids regex)
-    return new ParsedPath(splitByDot(p, 2));
+    if (p.indexOf('[') < 0 && p.indexOf('*') < 0) {
+      // Manual split for performance (avoids regex)
+      return new ParsedPath(splitByDot(p, 2));
+    }
+    return parseBracketPath(path, p);
+  }
+
+  /**
+   * Parses a path with bracket, wildcard or filter segments into its definite prefix and
+   * a {@link Selector} for the rest.
+   */
+  private static ParsedPath parseBracketPath(String path, String p) {
+    List<Step> steps = new ArrayList<>();
+    int i = 1;
+    int n = p.length();
+    while (i < n) {
+      char c = p.charAt(i);
+      if (c == '.') {
+        int end = i + 1;
+        while (end < n && p.charAt(end) != '.' && p.charAt(end) != '[') {
+          end++;
+        }
+        String name = p.substring(i + 1, end);
+        if (name.isEmpty()) {
+          throw new IllegalArgumentException("Empty segment in path: " + path);
+        }
+        steps.add("*".equals(name) ? Step.wildcard() : Step.key(name));
+        i = end;
+      } else if (c == '[') {
+        int close;
+        if (p.startsWith("[?(", i)) {
+          close = closingFilter(p, i + 3, path);
+          steps.add(parseFilter(p.substring(i + 3, close - 1), path));
+        } else {
+          close = p.indexOf(']', i);
+          if (close < 0) {
+            throw new IllegalArgumentException("Unclosed '[' in path: " + path);
+          }
+          String content = p.substring(i + 1, close).trim();
+          if (content.isEmpty()) {
+            steps.add(Step.elements());
+          } else if ("*".equals(content)) {
+            steps.add(Step.wildcard());
+          } else if (ParsedPath.parseIndex(content) >= 0) {
+            steps.add(Step.key(content));
+          } else if (content.length() >= 2 && (content.charAt(0) == '\'' || content.charAt(0) == '"')
+              && content.charAt(content.length() - 1) == content.charAt(0)) {
+            steps.add(Step.key(content.substring(1, content.length() - 1)));
+          } else {
+            throw new IllegalArgumentException("Unsupported segment [" + content + "] in path: " + path);
+          }
+        }
+        i = close + 1;
+      } else {
+        throw new IllegalArgumentException("Expected '.' or '[' at position " + i + " in path: " + path);
+      }
+    }
+
+    int definite = 0;
+    while (definite < steps.size() && steps.get(definite).kind == Step.KEY) {
+      definite++;
+    }
+    String[] segments = new String[definite];
+    StringBuilder prefix = new StringBuilder("$");
+    for (int k = 0; k < definite; k++) {
+      segments[k] = steps.get(k).key;
+      prefix.append('.').append(segments[k]);
+    }
+    if (definite == steps.size()) {
+      return new ParsedPath(segments);
+    }
+    Selector selector = new Selector(steps.subList(definite, steps.size()).toArray(new Step[0]));
+    return new ParsedPath(segments, prefix.toString(), selector);
+  }
+
+  /**
+   * Index of the ']' closing a filter whose expression starts at {@code from}.
+   */
+  private static int closingFilter(String p, int from, String path) {
+    char quote = 0;
+    for (int i = from; i < p.length(); i++) {
+      char c = p.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == ')' && i + 1 < p.length() && p.charAt(i + 1) == ']') {
+        return i + 1;
+      }
+    }
+    throw new IllegalArgumentException("Unclosed filter in path: " + path);
+  }
+
+  /**
+   * Parses {@code @.field == 'literal'} (or {@code !=}); the literal may be quoted or bare.
+   */
+  private static Step parseFilter(String expr, String path) {
+    int op = operatorIndex(expr);
+    boolean negate = op >= 0 && expr.charAt(op) == '!';
+    String field = (op < 0) ? "" : expr.substring(0, op).trim();
+    if (op < 0 || !field.startsWith("@.") || field.length() < 3) {
+      throw new IllegalArgumentException("Unsupported filter (" + expr + ") in path: " + path);
+    }
+    String literal = expr.substring(op + 2).trim();
+    if (literal.length() >= 2 && (literal.charAt(0) == '\'' || literal.charAt(0) == '"')
+        && literal.charAt(literal.length() - 1) == literal.charAt(0)) {
+      literal = literal.substring(1, literal.length() - 1);
+    }
+    return Step.filter(splitByDot(field, 2), literal, negate);
+  }
+
+  /**
+   * Index of the first {@code ==} / {@code !=} outside a quoted literal, or -1.
+   */
+  private static int operatorIndex(String expr) {
+    char quote = 0;
+    for (int i = 0; i + 1 < expr.length(); i++) {
+      char c = expr.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if ((c == '=' || c == '!') && expr.charAt(i + 1) == '=') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Parsed segments of a dot-notation target path. Shared with {@link OutputShape}.
+   */
+  static String[] targetSegments(String dotPath) {
+    return parseTargetPath(dotPath);
   }
 
   private static String[] parseTargetPath(String dotPath) {
@@ -111,6 +458,143 @@ public final class JsonPathMini {
     return result;
   }
 
+  /**
+   * Compiles a source path into an {@link Accessor}. Depths up to four are unrolled
+   * into straight-line lambdas; deeper paths fall back to a loop over the parsed segments.
+   *
+   * @throws IllegalArgumentException if the path does not start with '$.'
+   */
+  public static Accessor compile(String path) {
+    if (path == null || path.isEmpty() || isBlank(path)) {
+      return root -> null;
+    }
+    return ACCESSOR_CACHE.computeIfAbsent(path, JsonPathMini::doCompile);
+  }
+
+  private static Accessor doCompile(String path) {
+    ParsedPath parsed = parsePath(path);
+    if (parsed.selector != null) {
+      Accessor prefix = doCompile(parsed.segments, parsed.indices);
+      Selector selector = parsed.selector;
+      return root -> {
+        Object start = prefix.get(root);
+        return (start == null) ? null : selector.select(start);
+      };
+    }
+    return doCompile(parsed.segments, parsed.indices);
+  }
+
+  private static Accessor doCompile(String[] s, int[] i) {
+    switch (s.length) {
+      case 0:
+        return root -> root;
+      case 1: {
+        String s0 = s[0];
+        int i0 = i[0];
+        return root -> step(root, s0, i0);
+      }
+      case 2: {
+        String s0 = s[0], s1 = s[1];
+        int i0 = i[0], i1 = i[1];
+        return root -> step(step(root, s0, i0), s1, i1);
+      }
+      case 3: {
+        String s0 = s[0], s1 = s[1], s2 = s[2];
+        int i0 = i[0], i1 = i[1], i2 = i[2];
+        return root -> step(step(step(root, s0, i0), s1, i1), s2, i2);
+      }
+      case 4: {
+        String s0 = s[0], s1 = s[1], s2 = s[2], s3 = s[3];
+        int i0 = i[0], i1 = i[1], i2 = i[2], i3 = i[3];
+        return root -> step(step(step(step(root, s0, i0), s1, i1), s2, i2), s3, i3);
+      }
+      default:
+        return root -> {
+          Object cur = root;
+          for (int k = 0; k < s.length && cur != null; k++) {
+            cur = step(cur, s[k], i[k]);
+          }
+          return cur;
+        };
+    }
+  }
+
+  /**
+   * Compiles a dot-notation target path into a {@link Writer}. Depths up to three are
+   * unrolled; deeper paths fall back to a loop over the parsed segments.
+   */
+  public static Writer compileTarget(String dotPath) {
+    if (dotPath == null || dotPath.isEmpty()) {
+      return (root, value) -> {};
+    }
+    return WRITER_CACHE.computeIfAbsent(dotPath, JsonPathMini::doCompileTarget);
+  }
+
+  private static Writer doCompileTarget(String dotPath) {
+    String[] s = parseTargetPath(dotPath);
+    switch (s.length) {
+      case 0:
+        return (root, value) -> {};
+      case 1: {
+        String s0 = s[0];
+        return (root, value) -> root.put(s0, value);
+      }
+      case 2: {
+        String s0 = s[0], s1 = s[1];
+        return (root, value) -> child(root, s0).put(s1, value);
+      }
+      case 3: {
+        String s0 = s[0], s1 = s[1], s2 = s[2];
+        return (root, value) -> child(child(root, s0), s1).put(s2, value);
+      }
+      default: {
+        int lastIdx = s.length - 1;
+        String last = s[lastIdx];
+        return (root, value) -> {
+          Map<String, Object> cur = root;
+          for (int k = 0; k < lastIdx; k++) {
+            cur = child(cur, s[k]);
+          }
+          cur.put(last, value);
+        };
+      }
+    }
+  }
+
+  /**
+   * Single traversal step: map key lookup or pre-parsed list index.
+   */
+  static Object step(Object cur, String seg, int idx) {
+    if (cur instanceof Map<?, ?> m) {
+      return m.get(seg);
+    }
+    if (cur instanceof List<?> list) {
+      return (idx >= 0 && idx < list.size()) ? list.get(idx) : null;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the nested map under {@code seg}, replacing any non-map value with a new map.
+   * Nested maps of an {@link OverlayMap} are wrapped rather than written through.
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> child(Map<String, Object> cur, String seg) {
+    if (cur instanceof OverlayMap overlay) {
+      Map<String, Object> nested = overlay.writableChild(seg);
+      if (nested != null) {
+        return nested;
+      }
+    }
+    Object existing = cur.get(seg);
+    if (existing instanceof Map<?, ?>) {
+      return (Map<String, Object>) existing;
+    }
+    Map<String, Object> next = new java.util.LinkedHashMap<>(4);
+    cur.put(seg, next);
+    return next;
+  }
+
   public static Object get(Object root, String path) {
     if (path == null || path.isEmpty()) {
       return null;
@@ -122,7 +606,7 @@ public final class JsonPathMini {
     
     ParsedPath parsed = parsePath(path);
     if (parsed.segments.length == 0) {
-      return root;
+      return (parsed.selector == null || root == null) ? root : parsed.selector.select(root);
     }
     
     Object cur = root;
@@ -146,10 +630,12 @@ public final class JsonPathMini {
         return null;
       }
     }
+    if (parsed.selector != null && cur != null) {
+      return parsed.selector.select(cur);
+    }
     return cur;
   }
 
-  @SuppressWarnings("unchecked")
   public static void put(Map<String, Object> root, String dotPath, Object value) {
     if (dotPath == null || dotPath.isEmpty()) {
       return;
@@ -164,15 +650,7 @@ public final class JsonPathMini {
     int lastIdx = segments.length - 1;
     
     for (int i = 0; i < lastIdx; i++) {
-      String seg = segments[i];
-      Object existing = cur.get(seg);
-      if (existing instanceof Map<?, ?>) {
-        cur = (Map<String, Object>) existing;
-      } else {
-        Map<String, Object> next = new java.util.LinkedHashMap<>(4);
-        cur.put(seg, next);
-        cur = next;
-      }
+      cur = child(cur, segments[i]);
     }
     cur.put(segments[lastIdx], value);
   }
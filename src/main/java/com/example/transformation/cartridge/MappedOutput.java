@@ -0,0 +1,39 @@
+package com.example.transformation.cartridge;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+
+/**
+ * Mapped and validated output that has not been assembled into a Map.
+ *
+ * Holds the leaf values of a compiled plan and writes them straight to a
+ * {@link JsonGenerator} in target order when serialized by Jackson.
+ */
+public final class MappedOutput implements JsonSerializable {
+  private final OutputShape shape;
+  private final Object[] leaves;
+
+  MappedOutput(OutputShape shape, Object[] leaves) {
+    this.shape = shape;
+    this.leaves = leaves;
+  }
+
+  public void writeTo(JsonGenerator gen) throws IOException {
+    shape.write(gen, leaves);
+  }
+
+  @Override
+  public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+    writeTo(gen);
+  }
+
+  @Override
+  public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+      throws IOException {
+    // Output trees are plain JSON; no type information is ever written
+    writeTo(gen);
+  }
+}
@@ -18,6 +18,11 @@ import java.util.Map;
  * mappings:
  *   - source: $.msgId
  *     target: messageId
+ *   - source: $.rmtInf
+ *     target: remittance.lines
+ *     forEach:
+ *       - source: $.ustrd
+ *         target: text
  */
 public class MappingDefinition {
 
@@ -53,6 +58,14 @@ public class MappingDefinition {
         public Double min;
         /** Optional: numeric maximum (applied if value is numeric or numeric string). */
         public Double max;
+        /**
+         * Optional: value type (int, long, decimal, amount, date, boolean, iban, bic). The value must
+         * parse as this type (iban: mod-97 check digits); min/max are then compared on the parsed
+         * value (amounts in minor units).
+         */
+        public String type;
+        /** Optional: fraction digits of an amount type (default 2). */
+        public Integer scale;
     }
 
     public static class MappingRule {
@@ -64,5 +77,19 @@ public class MappingDefinition {
         public boolean required = false;
         /** Default string to use when source missing (and not required). */
         public String defaultValue;
+        /**
+         * Optional: coerce the value to this type (int, long, decimal, amount, date, boolean, iban,
+         * bic); an amount becomes a long in minor units, iban/bic values are normalized (no spaces,
+         * upper case). Fails if the value does not parse.
+         */
+        public String type;
+        /** Optional: fraction digits of an amount type (default 2). */
+        public Integer scale;
+        /**
+         * Optional: map each element of the source array with these rules into a target array.
+         * Nested sources are relative to the element ($ = element), nested targets to the output
+         * element. A non-array source value is mapped as a single element.
+         */
+        public List<MappingRule> forEach;
     }
 }
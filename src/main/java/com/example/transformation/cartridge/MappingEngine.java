@@ -3,196 +3,636 @@ package com.example.transformation.cartridge;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Applies a {@link MappingDefinition} to an input tree.
+ *
+ * Plan modes (app.mapping.plan-mode):
+ * - interpreted: every rule resolves its paths through {@link JsonPathMini#get}/{@link JsonPathMini#put}
+ * - compiled: source paths are merged into a {@link PathTrie} so one traversal of the input
+ *   resolves every mapping source; mapped values are written into the leaf slots of an
+ *   {@link OutputShape} derived once from the targets, and the output tree is assembled from
+ *   exactly-sized nodes (validations read the leaves directly)
+ *
+ * Plans are compiled once per definition (by {@link #prepare} from the cache warmer, or on
+ * first use). A definition with an unusable path fails with TECH-MAPPING-READ naming the path,
+ * in either mode; there is no fallback between modes, both parse the same paths.
+ */
 @Component
 public class MappingEngine {
-  // Cache compiled regex patterns to avoid recompilation on every validation
-  private static final ConcurrentHashMap<String, Pattern> PATTERN_CACHE = new ConcurrentHashMap<>(32);
-  private static final ConcurrentHashMap<MappingDefinition, MappingPlan> PLAN_CACHE = new ConcurrentHashMap<>();
+  private static final Logger log = LoggerFactory.getLogger(MappingEngine.class);
+
+  // Cache compiled pattern matchers to avoid recompilation on every validation
+  private static final ConcurrentHashMap<String, ValueMatcher> PATTERN_CACHE = new ConcurrentHashMap<>(32);
+  private static final boolean[] NO_CONDITIONS = new boolean[0];
+
+  private final ConcurrentHashMap<MappingDefinition, MappingPlan> planCache = new ConcurrentHashMap<>();
+  private final boolean compiledPlans;
+
+  public MappingEngine(@Value("${app.mapping.plan-mode:interpreted}") String planMode) {
+    this.compiledPlans = "compiled".equalsIgnoreCase(planMode);
+  }
 
   public Map<String, Object> map(Object input, MappingDefinition def) {
+    return map(input, getPlan(def), null);
+  }
+
+  /**
+   * Collect-all variant of {@link #map(Object, MappingDefinition)}: missing required sources and
+   * validation failures are added to {@code result} instead of thrown, and mapping carries on so
+   * every violation of the record is reported. The (possibly partial) output is still returned;
+   * callers check {@link ValidationResult#isValid()}.
+   */
+  public Map<String, Object> map(Object input, MappingDefinition def, ValidationResult result) {
+    return map(input, getPlan(def), result);
+  }
+
+  /**
+   * Maps and validates like {@link #map(Object, MappingDefinition)}, but for compiled plans
+   * returns a {@link MappedOutput} that writes the mapped leaves straight to a JsonGenerator
+   * instead of assembling an output Map. Falls back to {@link #map} when the definition has
+   * no output shape or its validations need the assembled tree.
+   */
+  public Object mapToOutput(Object input, MappingDefinition def) {
+    return mapToOutput(input, def, null);
+  }
+
+  /**
+   * Collect-all variant of {@link #mapToOutput(Object, MappingDefinition)}.
+   */
+  public Object mapToOutput(Object input, MappingDefinition def, ValidationResult result) {
     MappingPlan plan = getPlan(def);
-    
+    if (plan.outputShape == null || plan.validationLeaves == null) {
+      return map(input, plan, result);
+    }
+    Object[] leaves = mapLeaves(input, plan, result);
+    validateLeaves(leaves, plan, result);
+    return new MappedOutput(plan.outputShape, leaves);
+  }
+
+  private Map<String, Object> map(Object input, MappingPlan plan, ValidationResult result) {
+    if (plan.outputShape != null) {
+      Object[] leaves = mapLeaves(input, plan, result);
+      if (plan.validationLeaves != null) {
+        validateLeaves(leaves, plan, result);
+        return plan.outputShape.assemble(leaves);
+      }
+      Map<String, Object> out = plan.outputShape.assemble(leaves);
+      if (!plan.validations.isEmpty()) {
+        validate(plan.validationFrame.resolve(out), plan, "TRANSFORM", result);
+      }
+      return out;
+    }
+
     // Pre-size map based on number of mappings for better performance
     Map<String, Object> out = new LinkedHashMap<>(Math.max(plan.mappings.size(), 4));
+    Object[] sources = plan.sourceFrame.resolve(input);
 
     for (CompiledMappingRule rule : plan.mappings) {
-      Object v = JsonPathMini.get(input, rule.source);
-
-      if (v == null || (v instanceof String s && s.isEmpty()) || (v instanceof String s2 && isBlank(s2))) {
-        if (rule.required) {
-          throw new CartridgeException(ErrorCodes.code(ErrorCodes.MAPPING_SOURCE_MISSING), CartridgeException.ErrorType.FUNCTIONAL,
-              "Required mapping source missing: " + rule.source + " -> " + rule.target, rule.source, "TRANSFORM");
-        }
-        if (rule.defaultValue != null) {
-          v = rule.defaultValue;
-        } else {
-          continue;
-        }
+      Object v = ruleValue(rule, sources, result);
+      if (v != null) {
+        rule.targetWriter.put(out, v);
       }
-
-      JsonPathMini.put(out, rule.target, v);
     }
 
     if (!plan.validations.isEmpty()) {
-      validate(out, plan.validations, "TRANSFORM");
+      validate(plan.validationFrame.resolve(out), plan, "TRANSFORM", result);
     }
     return out;
   }
 
-  private void validate(Object input, java.util.List<CompiledValidationRule> rules, String step) {
-    if (rules.isEmpty()) {
+  /**
+   * Resolves every rule into the leaf slots of the plan's output shape (last write wins).
+   */
+  private Object[] mapLeaves(Object input, MappingPlan plan, ValidationResult result) {
+    Object[] sources = plan.sourceFrame.resolve(input);
+    Object[] leaves = new Object[plan.outputShape.leafCount()];
+    for (CompiledMappingRule rule : plan.mappings) {
+      Object v = ruleValue(rule, sources, result);
+      if (v != null && rule.leafSlot >= 0) {
+        leaves[rule.leafSlot] = v;
+      }
+    }
+    return leaves;
+  }
+
+  private void validateLeaves(Object[] leaves, MappingPlan plan, ValidationResult result) {
+    if (plan.validations.isEmpty()) {
       return;
     }
-    for (CompiledValidationRule v : rules) {
-      if (!matchesCondition(input, v)) {
-        continue;
-      }
-      if (v.isArrayPath) {
-        validateArrayPath(input, v, step);
-        continue;
+    int[] validationLeaves = plan.validationLeaves;
+    Object[] frame = new Object[validationLeaves.length];
+    for (int i = 0; i < frame.length; i++) {
+      frame[i] = validationLeaves[i] < 0 ? null : leaves[validationLeaves[i]];
+    }
+    validate(frame, plan, "TRANSFORM", result);
+  }
+
+  /**
+   * Value a rule writes: its source value, mapped element by element for forEach rules.
+   */
+  private Object ruleValue(CompiledMappingRule rule, Object[] sources, ValidationResult result) {
+    Object v = sourceValue(rule, sources, result);
+    return (v == null || rule.elementPlan == null) ? v : mapElements(v, rule.elementPlan, result);
+  }
+
+  /**
+   * Maps every element of a forEach source with the rule's element plan into a pre-sized list.
+   */
+  private java.util.List<Object> mapElements(Object source, MappingPlan elementPlan, ValidationResult result) {
+    if (!(source instanceof java.util.List<?> list)) {
+      java.util.List<Object> out = new java.util.ArrayList<>(1);
+      out.add(map(source, elementPlan, result));
+      return out;
+    }
+    int n = list.size();
+    java.util.List<Object> out = new java.util.ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      out.add(map(list.get(i), elementPlan, result));
+    }
+    return out;
+  }
+
+  /**
+   * Value a rule writes: the source value, or the default when missing/blank.
+   * Returns null when nothing should be written.
+   */
+  private static Object sourceValue(CompiledMappingRule rule, Object[] sources, ValidationResult result) {
+    Object v = PathTrie.slot(sources, rule.sourceSlot);
+    if (rule.sourceSelector != null && v != null) {
+      v = rule.sourceSelector.select(v);
+    }
+    if (v == null || (v instanceof String s && isBlank(s))) {
+      if (rule.required) {
+        fail(result, ErrorCodes.MAPPING_SOURCE_MISSING,
+            "Required mapping source missing: " + rule.source + " -> " + rule.target, rule.source, "TRANSFORM");
+        return null;
       }
-      Object value = JsonPathMini.get(input, v.path);
-      if (v.required) {
-        if (value == null || (value instanceof String s && isBlank(s))) {
-          throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_REQUIRED), CartridgeException.ErrorType.FUNCTIONAL,
-              "Validation failed: required field missing at " + v.path, v.path, step);
-        }
+      v = rule.defaultValue;
+      if (v == null) {
+        return null;
       }
-      if (v.equals != null) {
-        String actual = (value == null) ? null : String.valueOf(value);
-        if (!v.equals.equals(actual)) {
-          throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_EQUALS), CartridgeException.ErrorType.FUNCTIONAL,
-              "Validation failed: " + v.path + " must equal '" + v.equals + "' but was '" + actual + "'", v.path,
-              step);
+    }
+    return (rule.type == null || rule.elementPlan != null) ? v : coerce(rule, v, result);
+  }
+
+  /**
+   * Converts a rule's value (each match, for wildcard sources) to the rule's declared type.
+   */
+  private static Object coerce(CompiledMappingRule rule, Object v, ValidationResult result) {
+    if (rule.sourceSelector != null && v instanceof java.util.List<?> matches) {
+      java.util.List<Object> out = new java.util.ArrayList<>(matches.size());
+      for (Object match : matches) {
+        Object typed = coerce(rule, match, result);
+        if (typed == null) {
+          return null;
         }
+        out.add(typed);
       }
+      return out;
+    }
+    Object typed = rule.type.coerce(v, rule.scale);
+    if (typed == null) {
+      fail(result, ErrorCodes.MAPPING_SOURCE_TYPE,
+          "Mapping source " + rule.source + " is not a valid " + rule.typeName + ": '" + v + "'", rule.source, "TRANSFORM");
+    }
+    return typed;
+  }
 
-      if (value != null) {
-        applyValueChecks(value, v, step);
-      }
+  /**
+   * Reports a violation: thrown when no result is collecting (fail-fast), otherwise recorded.
+   * Always returns false so checks can {@code return fail(...)}.
+   */
+  private static boolean fail(ValidationResult result, String codeKey, String message, String field, String step) {
+    if (result == null) {
+      throw new CartridgeException(ErrorCodes.code(codeKey), CartridgeException.ErrorType.FUNCTIONAL, message, field, step);
     }
+    result.add(ErrorCodes.code(codeKey), message, field, step);
+    return false;
   }
 
-  private void validateArrayPath(Object input, CompiledValidationRule v, String step) {
-    Object listObj = JsonPathMini.get(input, v.arrayPath);
-    if (!(listObj instanceof java.util.List<?> list)) {
-      if (v.required) {
-        throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_REQUIRED), CartridgeException.ErrorType.FUNCTIONAL,
-            "Validation failed: required field missing at " + v.path, v.path, step);
-      }
+  private void validate(Object[] frame, MappingPlan plan, String step, ValidationResult result) {
+    if (plan.validations.isEmpty()) {
       return;
     }
-    if (list.isEmpty() && v.required) {
-      throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_REQUIRED), CartridgeException.ErrorType.FUNCTIONAL,
-          "Validation failed: required field missing at " + v.path, v.path, step);
-    }
-    for (Object item : list) {
-      Object value;
-      if (v.arrayFieldPath == null || v.arrayFieldPath.isEmpty()) {
-        value = item;
-      } else {
-        value = JsonPathMini.get(item, "$." + v.arrayFieldPath);
+    boolean[] passed = evaluateConditions(frame, plan.conditions);
+    for (ValidationGroup group : plan.validationGroups) {
+      if (group.condition >= 0 && !passed[group.condition]) {
+        continue;
       }
-      if (v.required) {
-        if (value == null || (value instanceof String s && isBlank(s))) {
-          throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_REQUIRED), CartridgeException.ErrorType.FUNCTIONAL,
-              "Validation failed: required field missing at " + v.path, v.path, step);
+      for (CompiledValidationRule v : group.rules) {
+        if (v.isArrayPath) {
+          validateArrayPath(PathTrie.slot(frame, v.arraySlot), v, step, result);
+          continue;
         }
+        checkValue(PathTrie.slot(frame, v.pathSlot), v, step, result);
       }
-      if (v.equals != null) {
-        String actual = (value == null) ? null : String.valueOf(value);
-        if (!v.equals.equals(actual)) {
-          throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_EQUALS), CartridgeException.ErrorType.FUNCTIONAL,
-              "Validation failed: " + v.path + " must equal '" + v.equals + "' but was '" + actual + "'", v.path,
-              step);
-        }
+    }
+  }
+
+  /**
+   * Evaluates every distinct condition of the plan once. Conditions are ordered by path slot,
+   * so the value of a shared whenPath is read and stringified once for all its branches.
+   */
+  private static boolean[] evaluateConditions(Object[] frame, ValidationCondition[] conditions) {
+    if (conditions.length == 0) {
+      return NO_CONDITIONS;
+    }
+    boolean[] passed = new boolean[conditions.length];
+    int slot = Integer.MIN_VALUE;
+    Object value = null;
+    String actual = null;
+    boolean present = false;
+    for (int i = 0; i < conditions.length; i++) {
+      ValidationCondition c = conditions[i];
+      if (c.whenSlot != slot) {
+        slot = c.whenSlot;
+        value = PathTrie.slot(frame, slot);
+        actual = (value == null) ? null : String.valueOf(value);
+        present = value != null && !(value instanceof String s && isBlank(s));
       }
-      if (value != null) {
-        applyValueChecks(value, v, step);
+      if (c.whenExists && !present) {
+        continue;
       }
+      passed[i] = c.whenEquals == null || c.whenEquals.equals(actual);
     }
+    return passed;
   }
 
-  private boolean matchesCondition(Object input, CompiledValidationRule v) {
-    if (v.whenPath == null || v.whenPath.isEmpty()) {
-      return true;
+  /**
+   * Validates every match of a wildcard/filter path under the value of its definite prefix.
+   * A required rule fails once when nothing matches, and per element whose value is missing.
+   */
+  private void validateArrayPath(Object start, CompiledValidationRule v, String step, ValidationResult result) {
+    int visited = (start == null) ? 0 : v.selector.forEach(start, value -> checkValue(value, v, step, result));
+    if (visited == 0 && v.required) {
+      fail(result, ErrorCodes.VALIDATION_REQUIRED, "Validation failed: required field missing at " + v.path, v.path, step);
     }
-    Object condValue = JsonPathMini.get(input, v.whenPath);
-    if (Boolean.TRUE.equals(v.whenExists)) {
-      if (condValue == null) return false;
-      if (condValue instanceof String s && isBlank(s)) return false;
+  }
+
+  /**
+   * Runs a rule's checks against one value; stops at the rule's first violation.
+   */
+  private boolean checkValue(Object value, CompiledValidationRule v, String step, ValidationResult result) {
+    if (v.required) {
+      if (value == null || (value instanceof String s && isBlank(s))) {
+        return fail(result, ErrorCodes.VALIDATION_REQUIRED, "Validation failed: required field missing at " + v.path, v.path,
+            step);
+      }
     }
-    if (v.whenEquals != null) {
-      String actual = (condValue == null) ? null : String.valueOf(condValue);
-      return v.whenEquals.equals(actual);
+    if (v.equals != null) {
+      String actual = (value == null) ? null : String.valueOf(value);
+      if (!v.equals.equals(actual)) {
+        return fail(result, ErrorCodes.VALIDATION_EQUALS,
+            "Validation failed: " + v.path + " must equal '" + v.equals + "' but was '" + actual + "'", v.path, step);
+      }
     }
-    return true;
+    return value == null || applyValueChecks(value, v, step, result);
   }
 
-  private void applyValueChecks(Object value, CompiledValidationRule v, String step) {
+  private boolean applyValueChecks(Object value, CompiledValidationRule v, String step, ValidationResult result) {
     if (v.minLength != null || v.maxLength != null || v.pattern != null) {
       String s = String.valueOf(value);
       int len = s.length();
       if (v.minLength != null && len < v.minLength) {
-        throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_MIN_LENGTH), CartridgeException.ErrorType.FUNCTIONAL,
+        return fail(result, ErrorCodes.VALIDATION_MIN_LENGTH,
             "Validation failed: " + v.path + " length must be >= " + v.minLength, v.path, step);
       }
       if (v.maxLength != null && len > v.maxLength) {
-        throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_MAX_LENGTH), CartridgeException.ErrorType.FUNCTIONAL,
+        return fail(result, ErrorCodes.VALIDATION_MAX_LENGTH,
             "Validation failed: " + v.path + " length must be <= " + v.maxLength, v.path, step);
       }
       if (v.pattern != null) {
-        Pattern p = (v.compiledPattern != null) ? v.compiledPattern : getCompiledPattern(v.pattern);
-        if (!p.matcher(s).matches()) {
-          throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_PATTERN), CartridgeException.ErrorType.FUNCTIONAL,
+        ValueMatcher m = (v.matcher != null) ? v.matcher : getMatcher(v.pattern);
+        if (!m.matches(s)) {
+          return fail(result, ErrorCodes.VALIDATION_PATTERN,
               "Validation failed: " + v.path + " must match pattern " + v.pattern, v.path, step);
         }
       }
     }
 
+    if (v.type != null) {
+      return checkType(value, v, step, result);
+    }
+
     if (v.min != null || v.max != null) {
       Double n = toNumberOrNull(value);
       if (n == null) {
-        throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_NUMBER), CartridgeException.ErrorType.FUNCTIONAL,
-            "Validation failed: " + v.path + " must be a number", v.path, step);
+        return fail(result, ErrorCodes.VALIDATION_NUMBER, "Validation failed: " + v.path + " must be a number", v.path, step);
       }
       double nv = n;
       if (v.min != null && nv < v.min) {
-        throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_MIN), CartridgeException.ErrorType.FUNCTIONAL,
-            "Validation failed: " + v.path + " must be >= " + v.min, v.path, step);
+        return fail(result, ErrorCodes.VALIDATION_MIN, "Validation failed: " + v.path + " must be >= " + v.min, v.path, step);
       }
       if (v.max != null && nv > v.max) {
-        throw new CartridgeException(ErrorCodes.code(ErrorCodes.VALIDATION_MAX), CartridgeException.ErrorType.FUNCTIONAL,
-            "Validation failed: " + v.path + " must be <= " + v.max, v.path, step);
+        return fail(result, ErrorCodes.VALIDATION_MAX, "Validation failed: " + v.path + " must be <= " + v.max, v.path, step);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Typed rules: the value must parse as the declared type; min/max are compared on the
+   * parsed value (a primitive long for int/long/amount, a BigDecimal for decimal).
+   */
+  private boolean checkType(Object value, CompiledValidationRule v, String step, ValidationResult result) {
+    int cmpMin;
+    int cmpMax;
+    if (v.type.integral()) {
+      long n = v.type.toLong(value, v.scale);
+      if (n == ValueType.INVALID) {
+        return failType(value, v, step, result);
+      }
+      cmpMin = (v.min == null) ? 0 : Double.compare(n, v.min);
+      cmpMax = (v.max == null) ? 0 : Double.compare(n, v.max);
+    } else if (v.type == ValueType.DECIMAL) {
+      java.math.BigDecimal d = ValueType.toDecimal(value);
+      if (d == null) {
+        return failType(value, v, step, result);
       }
+      cmpMin = (v.minDecimal == null) ? 0 : d.compareTo(v.minDecimal);
+      cmpMax = (v.maxDecimal == null) ? 0 : d.compareTo(v.maxDecimal);
+    } else {
+      return v.type.coerce(value, v.scale) != null || failType(value, v, step, result);
     }
+    if (cmpMin < 0) {
+      return fail(result, ErrorCodes.VALIDATION_MIN, "Validation failed: " + v.path + " must be >= " + v.min, v.path, step);
+    }
+    if (cmpMax > 0) {
+      return fail(result, ErrorCodes.VALIDATION_MAX, "Validation failed: " + v.path + " must be <= " + v.max, v.path, step);
+    }
+    return true;
+  }
+
+  private static boolean failType(Object value, CompiledValidationRule v, String step, ValidationResult result) {
+    return fail(result, ErrorCodes.VALIDATION_TYPE,
+        "Validation failed: " + v.path + " must be a valid " + v.typeName + " but was '" + value + "'", v.path, step);
   }
 
   private MappingPlan getPlan(MappingDefinition def) {
-    return PLAN_CACHE.computeIfAbsent(def, MappingEngine::compilePlan);
+    return planCache.computeIfAbsent(def, this::compilePlan);
+  }
+
+  /**
+   * Compiles and caches the plan of {@code def}.
+   *
+   * @throws CartridgeException (TECH-MAPPING-READ) when a path of the definition is unusable
+   */
+  public void prepare(MappingDefinition def) {
+    getPlan(def);
+  }
+
+  private MappingPlan compilePlan(MappingDefinition def) {
+    try {
+      return compilePlan(def, compiledPlans ? COMPILED : INTERPRETED);
+    } catch (IllegalArgumentException e) {
+      throw new CartridgeException(ErrorCodes.code(ErrorCodes.MAPPING_READ_FAILED), CartridgeException.ErrorType.TECHNICAL,
+          "Invalid mapping definition for " + def.cartridgeId + ": " + e.getMessage(), e, null, "CONFIG");
+    }
   }
 
-  private static MappingPlan compilePlan(MappingDefinition def) {
+  private static MappingPlan compilePlan(MappingDefinition def, PathCompiler paths) {
+    FrameBuilder sourceFrame = paths.frame();
+    FrameBuilder validationFrame = paths.frame();
     MappingPlan plan = new MappingPlan();
     if (def.mappings != null) {
       for (MappingDefinition.MappingRule rule : def.mappings) {
-        plan.mappings.add(new CompiledMappingRule(rule));
+        plan.mappings.add(new CompiledMappingRule(rule, paths, sourceFrame));
       }
     }
     if (def.validations != null) {
       for (MappingDefinition.ValidationRule v : def.validations) {
-        plan.validations.add(new CompiledValidationRule(v));
+        plan.validations.add(new CompiledValidationRule(v, validationFrame));
       }
     }
+    compileValidationGroups(plan);
+    plan.sourceFrame = sourceFrame.build();
+    plan.validationFrame = validationFrame.build();
+    if (paths == COMPILED) {
+      compileOutputShape(plan, validationFrame.paths());
+    }
     return plan;
   }
 
+  /**
+   * Splits the validations into runs of consecutive rules sharing one condition (rule order, and
+   * so the order of reported violations, is kept) and numbers the distinct conditions, sorted
+   * by path slot so {@link #evaluateConditions} reads each whenPath once.
+   */
+  private static void compileValidationGroups(MappingPlan plan) {
+    java.util.List<ValidationCondition> distinct = new java.util.ArrayList<>();
+    java.util.List<ValidationCondition> ruleConditions = new java.util.ArrayList<>(plan.validations.size());
+    for (CompiledValidationRule v : plan.validations) {
+      ValidationCondition c = null;
+      if (v.whenPath != null && !v.whenPath.isEmpty()) {
+        c = new ValidationCondition(v.whenSlot, Boolean.TRUE.equals(v.whenExists), v.whenEquals);
+        int existing = distinct.indexOf(c);
+        if (existing >= 0) {
+          c = distinct.get(existing);
+        } else {
+          distinct.add(c);
+        }
+      }
+      ruleConditions.add(c);
+    }
+    distinct.sort(java.util.Comparator.comparingInt(c -> c.whenSlot));
+    plan.conditions = distinct.toArray(new ValidationCondition[0]);
+
+    java.util.List<ValidationGroup> groups = new java.util.ArrayList<>();
+    int start = 0;
+    for (int i = 1; i <= plan.validations.size(); i++) {
+      if (i == plan.validations.size() || ruleConditions.get(i) != ruleConditions.get(start)) {
+        ValidationCondition c = ruleConditions.get(start);
+        groups.add(new ValidationGroup(c == null ? -1 : distinct.indexOf(c),
+            plan.validations.subList(start, i).toArray(new CompiledValidationRule[0])));
+        start = i;
+      }
+    }
+    plan.validationGroups = groups.toArray(new ValidationGroup[0]);
+  }
+
+  /**
+   * Derives the output tree shape and, when every validation path lands on a leaf,
+   * the leaf behind each validation slot. Leaves both unset if the targets conflict.
+   */
+  private static void compileOutputShape(MappingPlan plan, java.util.List<String> validationPaths) {
+    java.util.List<String> targets = new java.util.ArrayList<>(plan.mappings.size());
+    for (CompiledMappingRule rule : plan.mappings) {
+      targets.add(rule.target);
+    }
+    OutputShape shape;
+    try {
+      shape = OutputShape.of(targets);
+    } catch (IllegalArgumentException e) {
+      log.debug("No output shape for plan: {}", e.getMessage());
+      return;
+    }
+    for (CompiledMappingRule rule : plan.mappings) {
+      rule.leafSlot = (rule.target == null || rule.target.isEmpty()) ? -1 : shape.leaf(rule.target);
+    }
+    int[] leaves = new int[validationPaths.size()];
+    for (int i = 0; i < leaves.length; i++) {
+      int leaf = shape.resolve(validationPaths.get(i));
+      if (leaf == OutputShape.UNRESOLVED) {
+        plan.outputShape = shape;
+        return;
+      }
+      leaves[i] = leaf;
+    }
+    plan.outputShape = shape;
+    plan.validationLeaves = leaves;
+  }
+
+  /**
+   * Strategy for turning rule paths into source frames and target writers: either compiled (trie + lambdas)
+   * or thin wrappers that interpret the path string on every call.
+   */
+  private interface PathCompiler {
+    JsonPathMini.Writer target(String dotPath);
+
+    FrameBuilder frame();
+  }
+
+  /**
+   * Collects the source paths of one evaluation pass and assigns each a slot.
+   */
+  private interface FrameBuilder {
+    int add(String path);
+
+    java.util.List<String> paths();
+
+    Frame build();
+  }
+
+  /**
+   * Resolves every registered path of a pass into a slot array.
+   */
+  @FunctionalInterface
+  private interface Frame {
+    Object[] resolve(Object input);
+  }
+
+  private static final PathCompiler COMPILED = new PathCompiler() {
+    @Override
+    public FrameBuilder frame() {
+      PathTrie.Builder trie = PathTrie.builder();
+      return new FrameBuilder() {
+        @Override
+        public int add(String path) {
+          return trie.add(path);
+        }
+
+        @Override
+        public java.util.List<String> paths() {
+          return trie.paths();
+        }
+
+        @Override
+        public Frame build() {
+          return trie.build()::evaluate;
+        }
+      };
+    }
+
+    @Override
+    public JsonPathMini.Writer target(String dotPath) {
+      return JsonPathMini.compileTarget(dotPath);
+    }
+  };
+
+  private static final PathCompiler INTERPRETED = new PathCompiler() {
+    @Override
+    public JsonPathMini.Writer target(String dotPath) {
+      return (root, value) -> JsonPathMini.put(root, dotPath, value);
+    }
+
+    @Override
+    public FrameBuilder frame() {
+      java.util.List<String> paths = new java.util.ArrayList<>();
+      return new FrameBuilder() {
+        @Override
+        public int add(String path) {
+          int existing = paths.indexOf(path);
+          if (existing >= 0) {
+            return existing;
+          }
+          paths.add(path);
+          return paths.size() - 1;
+        }
+
+        @Override
+        public java.util.List<String> paths() {
+          return paths;
+        }
+
+        @Override
+        public Frame build() {
+          String[] p = paths.toArray(new String[0]);
+          return input -> {
+            Object[] slots = new Object[p.length];
+            for (int i = 0; i < p.length; i++) {
+              slots[i] = JsonPathMini.get(input, p[i]);
+            }
+            return slots;
+          };
+        }
+      };
+    }
+  };
+
   private static class MappingPlan {
     final java.util.List<CompiledMappingRule> mappings = new java.util.ArrayList<>();
     final java.util.List<CompiledValidationRule> validations = new java.util.ArrayList<>();
+    Frame sourceFrame;
+    Frame validationFrame;
+    ValidationCondition[] conditions;
+    ValidationGroup[] validationGroups;
+    // Compiled plans only: output tree shape and the leaf behind each validation slot
+    OutputShape outputShape;
+    int[] validationLeaves;
+  }
+
+  /**
+   * Distinct whenPath/whenExists/whenEquals combination of a plan's validations.
+   */
+  private static final class ValidationCondition {
+    final int whenSlot;
+    final boolean whenExists;
+    final String whenEquals;
+
+    ValidationCondition(int whenSlot, boolean whenExists, String whenEquals) {
+      this.whenSlot = whenSlot;
+      this.whenExists = whenExists;
+      this.whenEquals = whenEquals;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ValidationCondition c && c.whenSlot == whenSlot && c.whenExists == whenExists
+          && java.util.Objects.equals(c.whenEquals, whenEquals);
+    }
+
+    @Override
+    public int hashCode() {
+      return java.util.Objects.hash(whenSlot, whenExists, whenEquals);
+    }
+  }
+
+  /**
+   * Consecutive validation rules guarded by the same condition (-1 = unconditional).
+   */
+  private static final class ValidationGroup {
+    final int condition;
+    final CompiledValidationRule[] rules;
+
+    ValidationGroup(int condition, CompiledValidationRule[] rules) {
+      this.condition = condition;
+      this.rules = rules;
+    }
   }
 
   private static class CompiledMappingRule {
@@ -200,12 +640,34 @@ public class MappingEngine {
     final String target;
     final boolean required;
     final String defaultValue;
+    final int sourceSlot;
+    final JsonPathMini.Selector sourceSelector;
+    final JsonPathMini.Writer targetWriter;
+    final ValueType type;
+    final String typeName;
+    final int scale;
+    // forEach rules only: plan applied to each element of the source array
+    final MappingPlan elementPlan;
+    int leafSlot = -1;
 
-    CompiledMappingRule(MappingDefinition.MappingRule rule) {
+    CompiledMappingRule(MappingDefinition.MappingRule rule, PathCompiler paths, FrameBuilder frame) {
       this.source = rule.source;
       this.target = rule.target;
       this.required = rule.required;
       this.defaultValue = rule.defaultValue;
+      this.sourceSlot = frame.add(JsonPathMini.definitePrefix(rule.source));
+      this.sourceSelector = JsonPathMini.selector(rule.source);
+      this.targetWriter = paths.target(rule.target);
+      this.type = ValueType.of(rule.type);
+      this.typeName = rule.type;
+      this.scale = (rule.scale == null) ? ValueType.DEFAULT_SCALE : rule.scale;
+      this.elementPlan = (rule.forEach == null) ? null : compilePlan(elementDefinition(rule), paths);
+    }
+
+    private static MappingDefinition elementDefinition(MappingDefinition.MappingRule rule) {
+      MappingDefinition def = new MappingDefinition();
+      def.mappings = rule.forEach;
+      return def;
     }
   }
 
@@ -219,14 +681,21 @@ public class MappingEngine {
     final Integer minLength;
     final Integer maxLength;
     final String pattern;
-    final Pattern compiledPattern;
+    final ValueMatcher matcher;
     final Double min;
     final Double max;
+    final ValueType type;
+    final String typeName;
+    final int scale;
+    final java.math.BigDecimal minDecimal;
+    final java.math.BigDecimal maxDecimal;
     final boolean isArrayPath;
-    final String arrayPath;
-    final String arrayFieldPath;
+    final JsonPathMini.Selector selector;
+    final int pathSlot;
+    final int whenSlot;
+    final int arraySlot;
 
-    CompiledValidationRule(MappingDefinition.ValidationRule v) {
+    CompiledValidationRule(MappingDefinition.ValidationRule v, FrameBuilder frame) {
       this.path = v.path;
       this.required = v.required;
       this.whenPath = v.whenPath;
@@ -236,38 +705,28 @@ public class MappingEngine {
       this.minLength = v.minLength;
       this.maxLength = v.maxLength;
       this.pattern = v.pattern;
-      this.compiledPattern = (v.pattern == null) ? null : getCompiledPattern(v.pattern);
+      this.matcher = (v.pattern == null) ? null : getMatcher(v.pattern);
       this.min = v.min;
       this.max = v.max;
-      String[] arrayInfo = parseArrayPath(v.path);
-      this.isArrayPath = arrayInfo != null;
-      this.arrayPath = (arrayInfo == null) ? null : arrayInfo[0];
-      this.arrayFieldPath = (arrayInfo == null) ? null : arrayInfo[1];
-    }
-  }
-
-  private static String[] parseArrayPath(String path) {
-    if (path == null) return null;
-    int idx = path.indexOf("[]");
-    if (idx < 0) return null;
-    String listPath = path.substring(0, idx);
-    String fieldPath = "";
-    if (idx + 2 < path.length()) {
-      String rest = path.substring(idx + 2);
-      if (rest.startsWith(".")) {
-        fieldPath = rest.substring(1);
-      } else {
-        fieldPath = rest;
-      }
+      this.type = ValueType.of(v.type);
+      this.typeName = v.type;
+      this.scale = (v.scale == null) ? ValueType.DEFAULT_SCALE : v.scale;
+      this.minDecimal = (type == ValueType.DECIMAL && v.min != null) ? java.math.BigDecimal.valueOf(v.min) : null;
+      this.maxDecimal = (type == ValueType.DECIMAL && v.max != null) ? java.math.BigDecimal.valueOf(v.max) : null;
+      this.selector = JsonPathMini.selector(v.path);
+      this.isArrayPath = selector != null;
+      this.pathSlot = isArrayPath ? -1 : frame.add(v.path);
+      this.whenSlot = (v.whenPath == null || v.whenPath.isEmpty()) ? -1 : frame.add(v.whenPath);
+      this.arraySlot = isArrayPath ? frame.add(JsonPathMini.definitePrefix(v.path)) : -1;
     }
-    return new String[] { listPath, fieldPath };
   }
 
   /**
-   * Get cached compiled pattern, compiling only once per unique pattern string.
+   * Get cached matcher, compiling only once per unique pattern string. Simple patterns get a
+   * specialized {@link ValueMatcher}, everything else is backed by {@link java.util.regex.Pattern}.
    */
-  private static Pattern getCompiledPattern(String regex) {
-    return PATTERN_CACHE.computeIfAbsent(regex, Pattern::compile);
+  private static ValueMatcher getMatcher(String regex) {
+    return PATTERN_CACHE.computeIfAbsent(regex, ValueMatcher::compile);
   }
 
   private static Double toNumberOrNull(Object value) {
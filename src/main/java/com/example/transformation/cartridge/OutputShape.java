@@ -0,0 +1,215 @@
+package com.example.transformation.cartridge;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Output tree shape derived once from the mapping targets of a definition.
+ *
+ * Every distinct target path becomes a leaf slot. Leaves are numbered depth-first so each
+ * object node covers a contiguous slot range, which makes "does this subtree have any
+ * value" a simple range scan. Objects are emitted in first-declaration order of their
+ * targets; a node with no populated leaf is omitted, as with {@link JsonPathMini#put}.
+ *
+ * Immutable after construction and safe to share across threads.
+ */
+final class OutputShape {
+  /** {@link #resolve(String)}: path is not part of the output (always absent). */
+  static final int ABSENT = -1;
+  /** {@link #resolve(String)}: path ends on, or reaches through, a leaf; needs the materialized tree. */
+  static final int UNRESOLVED = -2;
+
+  private final Node root;
+  private final int leafCount;
+
+  private OutputShape(Node root, int leafCount) {
+    this.root = root;
+    this.leafCount = leafCount;
+  }
+
+  int leafCount() {
+    return leafCount;
+  }
+
+  /**
+   * Builds the shape for the given dot-notation targets (in declaration order).
+   *
+   * @throws IllegalArgumentException if a target is both a leaf and a parent of another target
+   */
+  static OutputShape of(List<String> targets) {
+    Node root = new Node(null);
+    for (String target : targets) {
+      if (target == null || target.isEmpty()) {
+        continue;
+      }
+      String[] segments = JsonPathMini.targetSegments(target);
+      Node cur = root;
+      for (int i = 0; i < segments.length; i++) {
+        boolean last = i == segments.length - 1;
+        Node next = cur.children.get(segments[i]);
+        if (next == null) {
+          next = new Node(segments[i]);
+          next.leaf = last;
+          cur.children.put(segments[i], next);
+        } else if (next.leaf != last) {
+          throw new IllegalArgumentException("Target is both a value and an object: " + target);
+        }
+        cur = next;
+      }
+    }
+    int[] counter = new int[1];
+    number(root, counter);
+    return new OutputShape(root, counter[0]);
+  }
+
+  private static void number(Node node, int[] counter) {
+    node.from = counter[0];
+    if (node.leaf) {
+      node.slot = counter[0]++;
+    } else {
+      for (Node child : node.children.values()) {
+        number(child, counter);
+      }
+    }
+    node.to = counter[0];
+  }
+
+  /**
+   * Leaf slot of a dot-notation target registered in this shape.
+   */
+  int leaf(String target) {
+    Node cur = root;
+    for (String seg : JsonPathMini.targetSegments(target)) {
+      cur = cur.children.get(seg);
+    }
+    return cur.slot;
+  }
+
+  /**
+   * Resolves a JSONPath-like source path ($.a.b) against the output shape.
+   *
+   * @return the leaf slot, {@link #ABSENT} or {@link #UNRESOLVED}
+   */
+  int resolve(String path) {
+    String[] segments = JsonPathMini.sourceSegments(path);
+    Node cur = root;
+    for (String seg : segments) {
+      if (cur.leaf) {
+        return UNRESOLVED;
+      }
+      cur = cur.children.get(seg);
+      if (cur == null) {
+        return ABSENT;
+      }
+    }
+    return cur.leaf ? cur.slot : UNRESOLVED;
+  }
+
+  /**
+   * Builds the populated part of the tree as nested LinkedHashMaps. Each map is allocated
+   * once with capacity for exactly its populated children; unpopulated subtrees are skipped.
+   */
+  Map<String, Object> assemble(Object[] leaves) {
+    return assembleObject(root, leaves);
+  }
+
+  private static Map<String, Object> assembleObject(Node node, Object[] leaves) {
+    int size = 0;
+    for (Node child : node.children.values()) {
+      if (child.leaf ? leaves[child.slot] != null : populated(child, leaves)) {
+        size++;
+      }
+    }
+    Map<String, Object> out = new LinkedHashMap<>(capacity(size));
+    for (Node child : node.children.values()) {
+      if (child.leaf) {
+        Object v = leaves[child.slot];
+        if (v != null) {
+          out.put(child.name, v);
+        }
+      } else if (populated(child, leaves)) {
+        out.put(child.name, assembleObject(child, leaves));
+      }
+    }
+    return out;
+  }
+
+  /**
+   * HashMap capacity that holds {@code size} entries without rehashing (default load factor).
+   */
+  private static int capacity(int size) {
+    return (int) (size / 0.75f) + 1;
+  }
+
+  /**
+   * Writes the populated part of the tree as a JSON object.
+   */
+  void write(JsonGenerator gen, Object[] leaves) throws IOException {
+    writeObject(gen, root, leaves);
+  }
+
+  private static void writeObject(JsonGenerator gen, Node node, Object[] leaves) throws IOException {
+    gen.writeStartObject();
+    for (Node child : node.children.values()) {
+      if (child.leaf) {
+        Object v = leaves[child.slot];
+        if (v != null) {
+          gen.writeFieldName(child.name);
+          writeValue(gen, v);
+        }
+      } else if (populated(child, leaves)) {
+        gen.writeFieldName(child.name);
+        writeObject(gen, child, leaves);
+      }
+    }
+    gen.writeEndObject();
+  }
+
+  private static boolean populated(Node node, Object[] leaves) {
+    for (int i = node.from; i < node.to; i++) {
+      if (leaves[i] != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void writeValue(JsonGenerator gen, Object v) throws IOException {
+    if (v instanceof String s) {
+      gen.writeString(s);
+    } else if (v instanceof Integer n) {
+      gen.writeNumber(n);
+    } else if (v instanceof Long n) {
+      gen.writeNumber(n);
+    } else if (v instanceof Double n) {
+      gen.writeNumber(n);
+    } else if (v instanceof BigDecimal n) {
+      gen.writeNumber(n);
+    } else if (v instanceof BigInteger n) {
+      gen.writeNumber(n);
+    } else if (v instanceof Boolean b) {
+      gen.writeBoolean(b);
+    } else {
+      // Maps, lists and any other value types go through the generator's codec
+      gen.writeObject(v);
+    }
+  }
+
+  private static final class Node {
+    final String name;
+    final Map<String, Node> children = new LinkedHashMap<>(4);
+    boolean leaf;
+    int slot = -1;
+    int from;
+    int to;
+
+    Node(String name) {
+      this.name = name;
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package com.example.transformation.cartridge;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Copy-on-write view over a base map: writes and removals are recorded in a small change
+ * map, every other key reads through to the base, which is never mutated.
+ *
+ * Iteration follows the base order (with changed values substituted and removed keys
+ * skipped), then new keys in insertion order - the same order a LinkedHashMap copy with
+ * the same writes would have. Nested maps taken for writing through {@link #writableChild}
+ * are themselves wrapped, so {@link JsonPathMini#put} never reaches into the base.
+ *
+ * Entries handed out by iteration are read-only by contract. Not thread-safe; intended for
+ * one record at a time.
+ */
+public final class OverlayMap extends AbstractMap<String, Object> {
+
+  // Marks a key removed from the view while it is still present in the base
+  private static final Object REMOVED = new Object();
+
+  private final Map<String, Object> base;
+  private final LinkedHashMap<String, Object> changes;
+  private Set<Map.Entry<String, Object>> entrySet;
+
+  public OverlayMap(Map<String, Object> base) {
+    this.base = base;
+    this.changes = new LinkedHashMap<>(8);
+  }
+
+  @Override
+  public Object get(Object key) {
+    Object v = changes.get(key);
+    if (v != null) {
+      return (v == REMOVED) ? null : v;
+    }
+    if (changes.containsKey(key)) {
+      return null;
+    }
+    return base.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    Object v = changes.get(key);
+    if (v != null) {
+      return v != REMOVED;
+    }
+    return changes.containsKey(key) || base.containsKey(key);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    Object prev = get(key);
+    changes.put(key, value);
+    return prev;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    if (!containsKey(key)) {
+      return null;
+    }
+    Object prev = get(key);
+    if (base.containsKey(key)) {
+      changes.put((String) key, REMOVED);
+    } else {
+      changes.remove(key);
+    }
+    return prev;
+  }
+
+  @Override
+  public int size() {
+    int size = base.size();
+    for (Map.Entry<String, Object> e : changes.entrySet()) {
+      boolean inBase = base.containsKey(e.getKey());
+      if (e.getValue() == REMOVED) {
+        size--;
+      } else if (!inBase) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns the nested map under {@code key} for writing. A map read through from the base is
+   * wrapped in its own overlay (and recorded) so nested writes leave the base untouched;
+   * returns null when the current value is not a map.
+   */
+  @SuppressWarnings("unchecked")
+  Map<String, Object> writableChild(String key) {
+    Object changed = changes.get(key);
+    if (changed instanceof Map<?, ?>) {
+      return (Map<String, Object>) changed;
+    }
+    if (changed == null && !changes.containsKey(key)) {
+      Object inherited = base.get(key);
+      if (inherited instanceof Map<?, ?> m) {
+        OverlayMap child = new OverlayMap((Map<String, Object>) m);
+        changes.put(key, child);
+        return child;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    Set<Map.Entry<String, Object>> es = entrySet;
+    if (es == null) {
+      es = new AbstractSet<>() {
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+          return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+          return OverlayMap.this.size();
+        }
+      };
+      entrySet = es;
+    }
+    return es;
+  }
+
+  /**
+   * Base entries first (changes applied), then keys that only exist in the change map.
+   * Removal through the iterator is not supported.
+   */
+  private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+    private final Iterator<Map.Entry<String, Object>> baseIt = base.entrySet().iterator();
+    private Iterator<Map.Entry<String, Object>> addedIt;
+    private Map.Entry<String, Object> next;
+
+    @Override
+    public boolean hasNext() {
+      if (next != null) {
+        return true;
+      }
+      while (baseIt.hasNext()) {
+        Map.Entry<String, Object> e = baseIt.next();
+        String key = e.getKey();
+        Object v = changes.get(key);
+        if (v == null && !changes.containsKey(key)) {
+          next = e;
+          return true;
+        }
+        if (v != REMOVED) {
+          next = new AbstractMap.SimpleImmutableEntry<>(key, v);
+          return true;
+        }
+      }
+      if (addedIt == null) {
+        addedIt = changes.entrySet().iterator();
+      }
+      while (addedIt.hasNext()) {
+        Map.Entry<String, Object> e = addedIt.next();
+        if (e.getValue() != REMOVED && !base.containsKey(e.getKey())) {
+          next = e;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Map.Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<String, Object> e = next;
+      next = null;
+      return e;
+    }
+  }
+}
@@ -0,0 +1,260 @@
+package com.example.transformation.cartridge;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared-prefix trie over a set of source paths.
+ *
+ * Every distinct path is assigned a slot; {@link #evaluate(Object)} walks the input
+ * tree once and fills all slots, so sibling paths such as
+ * $.recipientDetail.bank.accountName and $.recipientDetail.bank.accountNumber
+ * resolve their common prefix a single time.
+ *
+ * The same trie can also drive a Jackson token stream ({@link #capture(JsonParser)}):
+ * fields are matched against the trie as they arrive and unmatched subtrees are skipped,
+ * so only the registered paths are ever materialized.
+ *
+ * Immutable after {@link Builder#build()} and safe to share across threads.
+ */
+final class PathTrie {
+  private final Node root;
+  private final int slotCount;
+
+  private PathTrie(Node root, int slotCount) {
+    this.root = root;
+    this.slotCount = slotCount;
+  }
+
+  static Builder builder() {
+    return new Builder();
+  }
+
+  int slotCount() {
+    return slotCount;
+  }
+
+  /**
+   * Reads a slot from an evaluated frame; slot -1 (unregistered path) is always null.
+   */
+  static Object slot(Object[] frame, int slot) {
+    return slot < 0 ? null : frame[slot];
+  }
+
+  /**
+   * Resolves every registered path against {@code input}. Slots of missing paths are null.
+   */
+  Object[] evaluate(Object input) {
+    Object[] slots = new Object[slotCount];
+    visit(root, input, slots);
+    return slots;
+  }
+
+  private static void visit(Node node, Object value, Object[] slots) {
+    if (node.slot >= 0) {
+      slots[node.slot] = value;
+    }
+    if (value == null) {
+      return;
+    }
+    Node[] children = node.children;
+    for (int i = 0; i < children.length; i++) {
+      Node child = children[i];
+      Object next = JsonPathMini.step(value, child.segment, child.index);
+      if (next != null) {
+        visit(child, next, slots);
+      }
+    }
+  }
+
+  /**
+   * Reads one JSON object from {@code parser} (positioned on its START_OBJECT) and returns a
+   * sparse tree containing only the registered paths. Registered paths keep their whole
+   * subtree; list elements that are not on any path are left as null placeholders so
+   * numeric segments keep their positions.
+   */
+  Map<String, Object> capture(JsonParser parser) throws IOException {
+    if (root.slot >= 0) {
+      return readObject(parser);
+    }
+    return captureObject(parser, root);
+  }
+
+  private static Map<String, Object> captureObject(JsonParser p, Node node) throws IOException {
+    Map<String, Object> out = new LinkedHashMap<>();
+    while (p.nextToken() == JsonToken.FIELD_NAME) {
+      String name = p.currentName();
+      JsonToken t = p.nextToken();
+      Node child = node.byName(name);
+      if (child == null) {
+        p.skipChildren();
+        continue;
+      }
+      out.put(name, captureValue(p, t, child));
+    }
+    return out;
+  }
+
+  private static List<Object> captureArray(JsonParser p, Node node) throws IOException {
+    List<Object> out = new ArrayList<>();
+    JsonToken t;
+    while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+      Node child = node.byIndex(out.size());
+      if (child == null) {
+        p.skipChildren();
+        out.add(null);
+      } else {
+        out.add(captureValue(p, t, child));
+      }
+    }
+    return out;
+  }
+
+  private static Object captureValue(JsonParser p, JsonToken t, Node node) throws IOException {
+    if (node.slot >= 0 || node.children.length == 0) {
+      return readValue(p, t);
+    }
+    if (t == JsonToken.START_OBJECT) {
+      return captureObject(p, node);
+    }
+    if (t == JsonToken.START_ARRAY) {
+      return captureArray(p, node);
+    }
+    return readValue(p, t);
+  }
+
+  /**
+   * Untyped read with the same value types Jackson produces for Map&lt;String, Object&gt;.
+   */
+  static Object readValue(JsonParser p, JsonToken t) throws IOException {
+    switch (t) {
+      case START_OBJECT:
+        return readObject(p);
+      case START_ARRAY: {
+        List<Object> list = new ArrayList<>();
+        JsonToken next;
+        while ((next = p.nextToken()) != JsonToken.END_ARRAY) {
+          list.add(readValue(p, next));
+        }
+        return list;
+      }
+      case VALUE_STRING:
+        return p.getText();
+      case VALUE_NUMBER_INT:
+        return p.getNumberValue();
+      case VALUE_NUMBER_FLOAT:
+        return p.getDoubleValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      default:
+        return null;
+    }
+  }
+
+  private static Map<String, Object> readObject(JsonParser p) throws IOException {
+    Map<String, Object> out = new LinkedHashMap<>();
+    while (p.nextToken() == JsonToken.FIELD_NAME) {
+      String name = p.currentName();
+      out.put(name, readValue(p, p.nextToken()));
+    }
+    return out;
+  }
+
+  private static final class Node {
+    final String segment;
+    final int index;
+    int slot = -1;
+    Node[] children = new Node[0];
+    Map<String, Node> names;
+
+    Node byName(String name) {
+      return names.get(name);
+    }
+
+    Node byIndex(int idx) {
+      for (Node c : children) {
+        if (c.index == idx) {
+          return c;
+        }
+      }
+      return null;
+    }
+
+    void freeze() {
+      names = new HashMap<>(Math.max(4, children.length * 2));
+      for (Node c : children) {
+        names.put(c.segment, c);
+        c.freeze();
+      }
+    }
+
+    Node(String segment, int index) {
+      this.segment = segment;
+      this.index = index;
+    }
+
+    Node child(String seg, int idx) {
+      for (Node c : children) {
+        if (c.segment.equals(seg)) {
+          return c;
+        }
+      }
+      Node created = new Node(seg, idx);
+      Node[] grown = java.util.Arrays.copyOf(children, children.length + 1);
+      grown[children.length] = created;
+      children = grown;
+      return created;
+    }
+  }
+
+  static final class Builder {
+    private final Node root = new Node("$", -1);
+    private final List<String> paths = new ArrayList<>();
+
+    /**
+     * Registers a path and returns its slot. Identical paths share a slot;
+     * null or blank paths return -1 (always resolve to null).
+     *
+     * @throws IllegalArgumentException if the path does not start with '$.' or is not definite
+     */
+    int add(String path) {
+      if (path == null || path.isBlank()) {
+        return -1;
+      }
+      if (!JsonPathMini.isDefinite(path)) {
+        throw new IllegalArgumentException("Wildcard/filter paths cannot be added to a trie: " + path);
+      }
+      String[] segments = JsonPathMini.sourceSegments(path);
+      int[] indices = JsonPathMini.sourceIndices(path);
+      Node cur = root;
+      for (int i = 0; i < segments.length; i++) {
+        cur = cur.child(segments[i], indices[i]);
+      }
+      if (cur.slot < 0) {
+        cur.slot = paths.size();
+        paths.add(path);
+      }
+      return cur.slot;
+    }
+
+    /**
+     * Registered paths, indexed by slot.
+     */
+    List<String> paths() {
+      return paths;
+    }
+
+    PathTrie build() {
+      root.freeze();
+      return new PathTrie(root, paths.size());
+    }
+  }
+}
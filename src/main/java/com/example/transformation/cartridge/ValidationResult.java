@@ -0,0 +1,67 @@
+package com.example.transformation.cartridge;
+
+import java.util.Arrays;
+
+/**
+ * Collects every mapping/validation violation of a record instead of throwing on the first one.
+ *
+ * Violations are kept in parallel arrays that grow on demand and are reused after
+ * {@link #clear()}, so a single instance can be recycled across the records a thread processes.
+ * Not thread-safe.
+ */
+public final class ValidationResult {
+  private static final int INITIAL_CAPACITY = 4;
+
+  private String[] codes = new String[INITIAL_CAPACITY];
+  private String[] messages = new String[INITIAL_CAPACITY];
+  private String[] fields = new String[INITIAL_CAPACITY];
+  private String[] steps = new String[INITIAL_CAPACITY];
+  private int size;
+
+  public void add(String code, String message, String field, String step) {
+    if (size == codes.length) {
+      int capacity = size << 1;
+      codes = Arrays.copyOf(codes, capacity);
+      messages = Arrays.copyOf(messages, capacity);
+      fields = Arrays.copyOf(fields, capacity);
+      steps = Arrays.copyOf(steps, capacity);
+    }
+    codes[size] = code;
+    messages[size] = message;
+    fields[size] = field;
+    steps[size] = step;
+    size++;
+  }
+
+  public boolean isValid() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public String code(int i) {
+    return codes[i];
+  }
+
+  public String message(int i) {
+    return messages[i];
+  }
+
+  public String field(int i) {
+    return fields[i];
+  }
+
+  public String step(int i) {
+    return steps[i];
+  }
+
+  public void clear() {
+    Arrays.fill(codes, 0, size, null);
+    Arrays.fill(messages, 0, size, null);
+    Arrays.fill(fields, 0, size, null);
+    Arrays.fill(steps, 0, size, null);
+    size = 0;
+  }
+}
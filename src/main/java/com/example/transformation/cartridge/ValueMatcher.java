@@ -0,0 +1,423 @@
+package com.example.transformation.cartridge;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Full-string matcher for validation {@code pattern} values.
+ *
+ * The patterns used by cartridge validations are almost always trivial, e.g. {@code ^[BW]$},
+ * {@code ^[A-Z]{3}$} or {@code ^(IBAN|ALIAS|DEFAULT)$}. {@link #compile(String)} recognizes
+ *
+ * <ul>
+ *   <li>alternations of literals (and single literals), matched with a small perfect-hash table;</li>
+ *   <li>sequences of ASCII character classes / literal chars with {@code {n}}, {@code {n,m}},
+ *       {@code {n,}}, {@code +}, {@code *} or {@code ?} quantifiers, matched against 128-bit
+ *       char tables in one pass;</li>
+ * </ul>
+ *
+ * neither of which allocates per check. Anything else (groups, dots, negated classes, lazy
+ * quantifiers, sequences that would need backtracking, ...) falls back to {@link Pattern}.
+ *
+ * Matchers are immutable and safe to share across threads.
+ */
+interface ValueMatcher {
+
+  boolean matches(String s);
+
+  static ValueMatcher compile(String regex) {
+    String body = stripAnchors(regex);
+    ValueMatcher m = LiteralSet.parse(body);
+    if (m == null) {
+      m = CharSequenceMatcher.parse(body);
+    }
+    return (m != null) ? m : new RegexMatcher(Pattern.compile(regex));
+  }
+
+  /**
+   * {@code ^} and {@code $} are redundant for a full match; strip them when they are the outer anchors.
+   */
+  private static String stripAnchors(String regex) {
+    int start = regex.startsWith("^") ? 1 : 0;
+    int end = regex.length();
+    if (end > start && regex.charAt(end - 1) == '$') {
+      int backslashes = 0;
+      for (int i = end - 2; i >= start && regex.charAt(i) == '\\'; i--) {
+        backslashes++;
+      }
+      if ((backslashes & 1) == 0) {
+        end--;
+      }
+    }
+    return regex.substring(start, end);
+  }
+
+  /**
+   * Unescapes a regex fragment that only contains literal characters; null if it has any metacharacter.
+   */
+  private static String literal(String fragment) {
+    StringBuilder sb = new StringBuilder(fragment.length());
+    for (int i = 0; i < fragment.length(); i++) {
+      char c = fragment.charAt(i);
+      if (c == '\\') {
+        if (i + 1 >= fragment.length() || !isEscapedLiteral(fragment.charAt(i + 1))) {
+          return null;
+        }
+        sb.append(fragment.charAt(++i));
+      } else if (isPlainLiteral(c)) {
+        sb.append(c);
+      } else {
+        return null;
+      }
+    }
+    return sb.toString();
+  }
+
+  /** ASCII char that stands for itself outside a character class. */
+  private static boolean isPlainLiteral(char c) {
+    return c < 128 && ".[]{}()*+?^$|\\".indexOf(c) < 0;
+  }
+
+  /** Char that is a literal when escaped with a backslash (ASCII punctuation). */
+  private static boolean isEscapedLiteral(char c) {
+    return c < 128 && !Character.isLetterOrDigit(c) && c > ' ';
+  }
+
+  /**
+   * Alternation of literals, e.g. {@code (IBAN|ALIAS|DEFAULT)} or {@code 01|02}.
+   *
+   * Keys are placed by a hash of (length, first char, last char) into the smallest table
+   * without collisions, so a lookup is one slot read plus one equals. If no such table
+   * exists the set is kept in a HashSet.
+   */
+  final class LiteralSet implements ValueMatcher {
+    private static final int MAX_TABLE_BITS = 10;
+
+    private final String[] table;
+    private final int shift;
+    private final Set<String> fallback;
+
+    private LiteralSet(String[] table, int shift, Set<String> fallback) {
+      this.table = table;
+      this.shift = shift;
+      this.fallback = fallback;
+    }
+
+    static LiteralSet parse(String body) {
+      String inner = body;
+      if (body.startsWith("(?:") && body.endsWith(")")) {
+        inner = body.substring(3, body.length() - 1);
+      } else if (body.startsWith("(") && body.endsWith(")") && !body.startsWith("(?")) {
+        inner = body.substring(1, body.length() - 1);
+      }
+      List<String> values = new ArrayList<>();
+      int from = 0;
+      for (int i = 0; i <= inner.length(); i++) {
+        if (i == inner.length() || inner.charAt(i) == '|') {
+          String value = literal(inner.substring(from, i));
+          if (value == null) {
+            return null;
+          }
+          values.add(value);
+          from = i + 1;
+        } else if (inner.charAt(i) == '\\') {
+          i++;
+        }
+      }
+      for (int bits = 1; bits <= MAX_TABLE_BITS; bits++) {
+        if ((1 << bits) < values.size()) {
+          continue;
+        }
+        String[] table = new String[1 << bits];
+        int shift = 32 - bits;
+        boolean perfect = true;
+        for (String value : values) {
+          int slot = slot(value, shift);
+          if (table[slot] != null && !table[slot].equals(value)) {
+            perfect = false;
+            break;
+          }
+          table[slot] = value;
+        }
+        if (perfect) {
+          return new LiteralSet(table, shift, null);
+        }
+      }
+      return new LiteralSet(null, 0, new HashSet<>(values));
+    }
+
+    private static int slot(String s, int shift) {
+      int len = s.length();
+      int h = (len == 0) ? 0 : (len * 31 + s.charAt(0)) * 31 + s.charAt(len - 1);
+      return (h * 0x9E3779B9) >>> shift;
+    }
+
+    @Override
+    public boolean matches(String s) {
+      if (table == null) {
+        return fallback.contains(s);
+      }
+      String candidate = table[slot(s, shift)];
+      return candidate != null && candidate.equals(s);
+    }
+  }
+
+  /**
+   * Sequence of ASCII char sets with repeat bounds, e.g. {@code [A-Z]{4}0[A-Z0-9]{6}}.
+   *
+   * Each variable-length atom is matched greedily. That is only equivalent to the regex when
+   * the atoms that can follow it (up to the next mandatory one) are disjoint from it, which
+   * {@link #parse} checks; otherwise the pattern is left to {@link Pattern}.
+   */
+  final class CharSequenceMatcher implements ValueMatcher {
+    private final long[] low;
+    private final long[] high;
+    private final int[] mins;
+    private final int[] maxs;
+    private final int minLength;
+    private final long maxLength;
+
+    private CharSequenceMatcher(long[] low, long[] high, int[] mins, int[] maxs) {
+      this.low = low;
+      this.high = high;
+      this.mins = mins;
+      this.maxs = maxs;
+      int min = 0;
+      long max = 0;
+      for (int i = 0; i < mins.length; i++) {
+        min += mins[i];
+        max += maxs[i];
+      }
+      this.minLength = min;
+      this.maxLength = max;
+    }
+
+    static CharSequenceMatcher parse(String body) {
+      List<long[]> sets = new ArrayList<>();
+      List<int[]> bounds = new ArrayList<>();
+      int i = 0;
+      int n = body.length();
+      while (i < n) {
+        long[] set = new long[2];
+        char c = body.charAt(i);
+        if (c == '[') {
+          i = parseClass(body, i + 1, set);
+          if (i < 0) {
+            return null;
+          }
+        } else if (c == '\\') {
+          if (i + 1 >= n) {
+            return null;
+          }
+          char e = body.charAt(i + 1);
+          if (e == 'd') {
+            addRange(set, '0', '9');
+          } else if (isEscapedLiteral(e)) {
+            addRange(set, e, e);
+          } else {
+            return null;
+          }
+          i += 2;
+        } else if (isPlainLiteral(c)) {
+          addRange(set, c, c);
+          i++;
+        } else {
+          return null;
+        }
+
+        int min = 1;
+        int max = 1;
+        if (i < n) {
+          char q = body.charAt(i);
+          if (q == '+' || q == '*' || q == '?') {
+            min = (q == '+') ? 1 : 0;
+            max = (q == '?') ? 1 : Integer.MAX_VALUE;
+            i++;
+          } else if (q == '{') {
+            int close = body.indexOf('}', i);
+            if (close < 0) {
+              return null;
+            }
+            int[] range = parseBounds(body.substring(i + 1, close));
+            if (range == null) {
+              return null;
+            }
+            min = range[0];
+            max = range[1];
+            i = close + 1;
+          }
+          if (i < n && (body.charAt(i) == '?' || body.charAt(i) == '+') && (min != 1 || max != 1)) {
+            // lazy / possessive quantifiers
+            return null;
+          }
+        }
+        sets.add(set);
+        bounds.add(new int[] { min, max });
+      }
+      if (sets.isEmpty()) {
+        return null;
+      }
+
+      int atoms = sets.size();
+      long[] low = new long[atoms];
+      long[] high = new long[atoms];
+      int[] mins = new int[atoms];
+      int[] maxs = new int[atoms];
+      for (int a = 0; a < atoms; a++) {
+        low[a] = sets.get(a)[0];
+        high[a] = sets.get(a)[1];
+        mins[a] = bounds.get(a)[0];
+        maxs[a] = bounds.get(a)[1];
+      }
+      for (int a = 0; a < atoms; a++) {
+        if (mins[a] == maxs[a]) {
+          continue;
+        }
+        for (int b = a + 1; b < atoms; b++) {
+          if ((low[a] & low[b]) != 0 || (high[a] & high[b]) != 0) {
+            return null;
+          }
+          if (mins[b] > 0) {
+            break;
+          }
+        }
+      }
+      return new CharSequenceMatcher(low, high, mins, maxs);
+    }
+
+    /**
+     * Parses a class body starting after '['; returns the index after ']' or -1 if unsupported.
+     */
+    private static int parseClass(String body, int i, long[] set) {
+      int n = body.length();
+      if (i >= n || body.charAt(i) == '^') {
+        return -1;
+      }
+      int start = i;
+      while (i < n) {
+        char c = body.charAt(i);
+        if (c == ']') {
+          return (i == start) ? -1 : i + 1;
+        }
+        if (c == '-' && i != start && i + 1 < n && body.charAt(i + 1) != ']') {
+          // '-' only stands for itself at either end of the class
+          return -1;
+        }
+        int from;
+        if (c == '\\') {
+          if (i + 1 >= n) {
+            return -1;
+          }
+          char e = body.charAt(i + 1);
+          if (e == 'd') {
+            addRange(set, '0', '9');
+            i += 2;
+            continue;
+          }
+          if (!isEscapedLiteral(e)) {
+            return -1;
+          }
+          from = e;
+          i += 2;
+        } else if (c == '[' || c == '&' || c >= 128) {
+          // nested classes / intersections / non-ASCII
+          return -1;
+        } else {
+          from = c;
+          i++;
+        }
+        int to = from;
+        if (i + 1 < n && body.charAt(i) == '-' && body.charAt(i + 1) != ']') {
+          char r = body.charAt(i + 1);
+          if (r == '\\') {
+            if (i + 2 >= n || !isEscapedLiteral(body.charAt(i + 2))) {
+              return -1;
+            }
+            to = body.charAt(i + 2);
+            i += 3;
+          } else if (r == '[' || r >= 128) {
+            return -1;
+          } else {
+            to = r;
+            i += 2;
+          }
+          if (to < from) {
+            return -1;
+          }
+        }
+        addRange(set, from, to);
+      }
+      return -1;
+    }
+
+    private static int[] parseBounds(String spec) {
+      int comma = spec.indexOf(',');
+      try {
+        if (comma < 0) {
+          int count = Integer.parseInt(spec);
+          return new int[] { count, count };
+        }
+        int min = Integer.parseInt(spec.substring(0, comma));
+        String upper = spec.substring(comma + 1);
+        int max = upper.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(upper);
+        return (min < 0 || max < min) ? null : new int[] { min, max };
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    private static void addRange(long[] set, int from, int to) {
+      for (int c = from; c <= to; c++) {
+        if (c < 64) {
+          set[0] |= 1L << c;
+        } else {
+          set[1] |= 1L << (c - 64);
+        }
+      }
+    }
+
+    @Override
+    public boolean matches(String s) {
+      int len = s.length();
+      if (len < minLength || len > maxLength) {
+        return false;
+      }
+      int pos = 0;
+      for (int a = 0; a < mins.length; a++) {
+        long lo = low[a];
+        long hi = high[a];
+        int max = maxs[a];
+        int count = 0;
+        while (count < max && pos < len) {
+          char c = s.charAt(pos);
+          boolean member = (c < 64) ? ((lo >>> c) & 1L) != 0 : c < 128 && ((hi >>> (c - 64)) & 1L) != 0;
+          if (!member) {
+            break;
+          }
+          pos++;
+          count++;
+        }
+        if (count < mins[a]) {
+          return false;
+        }
+      }
+      return pos == len;
+    }
+  }
+
+  final class RegexMatcher implements ValueMatcher {
+    private final Pattern pattern;
+
+    RegexMatcher(Pattern pattern) {
+      this.pattern = pattern;
+    }
+
+    @Override
+    public boolean matches(String s) {
+      return pattern.matcher(s).matches();
+    }
+  }
+}
@@ -0,0 +1,401 @@
+package com.example.transformation.cartridge;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Declared value type of a mapping/validation rule ({@code type:} in mapping.yaml).
+ *
+ * Strings are parsed straight from their chars: integral and minor-unit amounts are
+ * accumulated into a {@code long} without substrings or a detour through
+ * {@link Double#parseDouble}, and dates are checked digit by digit.
+ *
+ * <ul>
+ *   <li>{@code int}, {@code long}: integral numbers (Integer / Long)</li>
+ *   <li>{@code decimal}: BigDecimal</li>
+ *   <li>{@code amount}: major-unit amount converted to a Long in minor units
+ *       ({@code scale} fraction digits, default 2); more significant fraction digits are invalid</li>
+ *   <li>{@code date}: ISO-8601 date yyyy-MM-dd as String; a date-time (separated by 'T' or a
+ *       space, time HH:mm[:ss[.fraction]] with an optional Z or +/-hh:mm offset) is valid too
+ *       and its time part dropped</li>
+ *   <li>{@code boolean}: true/false/1/0 as Boolean</li>
+ *   <li>{@code iban}: IBAN with valid mod-97 check digits, normalized (no spaces, upper case)</li>
+ *   <li>{@code bic}: 8 or 11 character BIC, normalized (see {@link BankIdentifiers})</li>
+ * </ul>
+ */
+enum ValueType {
+  INT,
+  LONG,
+  DECIMAL,
+  AMOUNT,
+  DATE,
+  BOOLEAN,
+  IBAN,
+  BIC;
+
+  /** Returned by {@link #toLong} when the value is not a valid integral/amount value. */
+  static final long INVALID = Long.MIN_VALUE;
+
+  static final int DEFAULT_SCALE = 2;
+
+  private static final long[] POWERS_OF_TEN = {
+      1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+      10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+      1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L };
+
+  /**
+   * Parses a {@code type:} value (case-insensitive); null for null/blank.
+   *
+   * @throws IllegalArgumentException for an unknown type
+   */
+  static ValueType of(String name) {
+    if (name == null || name.isBlank()) {
+      return null;
+    }
+    switch (name.trim().toLowerCase(java.util.Locale.ROOT)) {
+      case "int":
+      case "integer":
+        return INT;
+      case "long":
+        return LONG;
+      case "decimal":
+        return DECIMAL;
+      case "amount":
+        return AMOUNT;
+      case "date":
+        return DATE;
+      case "boolean":
+        return BOOLEAN;
+      case "iban":
+        return IBAN;
+      case "bic":
+        return BIC;
+      default:
+        throw new IllegalArgumentException("Unknown value type: " + name);
+    }
+  }
+
+  boolean integral() {
+    return this == INT || this == LONG || this == AMOUNT;
+  }
+
+  /**
+   * Converts a value to this type; null if it cannot be represented.
+   */
+  Object coerce(Object value, int scale) {
+    switch (this) {
+      case INT: {
+        long n = toLong(value, scale);
+        return (n == INVALID) ? null : Integer.valueOf((int) n);
+      }
+      case LONG:
+      case AMOUNT: {
+        long n = toLong(value, scale);
+        return (n == INVALID) ? null : Long.valueOf(n);
+      }
+      case DECIMAL:
+        return toDecimal(value);
+      case DATE:
+        return toDate(value);
+      case BOOLEAN:
+        return toBoolean(value);
+      case IBAN:
+        return (value instanceof CharSequence cs) ? BankIdentifiers.normalizeIban(cs) : null;
+      case BIC:
+        return (value instanceof CharSequence cs) ? BankIdentifiers.normalizeBic(cs) : null;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Integral value of an int/long/amount typed value (amounts in minor units), or {@link #INVALID}.
+   */
+  long toLong(Object value, int scale) {
+    long n = scaledLong(value, (this == AMOUNT) ? scale : 0);
+    if (this == INT && (n < Integer.MIN_VALUE || n > Integer.MAX_VALUE)) {
+      return INVALID;
+    }
+    return n;
+  }
+
+  private static long scaledLong(Object value, int fractionDigits) {
+    if (value instanceof String s) {
+      return parseScaled(s, fractionDigits);
+    }
+    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return scale(((Number) value).longValue(), fractionDigits);
+    }
+    if (value instanceof Double || value instanceof Float) {
+      double d = ((Number) value).doubleValue();
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+        return INVALID;
+      }
+      if (fractionDigits == 0 && d == Math.rint(d) && Math.abs(d) < 0x1p53) {
+        return (long) d;
+      }
+      return fromDecimal(BigDecimal.valueOf(d), fractionDigits);
+    }
+    if (value instanceof BigDecimal bd) {
+      return fromDecimal(bd, fractionDigits);
+    }
+    if (value instanceof BigInteger bi) {
+      return fromDecimal(new BigDecimal(bi), fractionDigits);
+    }
+    return INVALID;
+  }
+
+  /**
+   * Decimal value of a number or numeric string, or null.
+   */
+  static BigDecimal toDecimal(Object value) {
+    if (value instanceof BigDecimal bd) {
+      return bd;
+    }
+    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return BigDecimal.valueOf(((Number) value).longValue());
+    }
+    if (value instanceof Double || value instanceof Float) {
+      double d = ((Number) value).doubleValue();
+      return (Double.isNaN(d) || Double.isInfinite(d)) ? null : BigDecimal.valueOf(d);
+    }
+    if (value instanceof BigInteger bi) {
+      return new BigDecimal(bi);
+    }
+    if (value instanceof String s) {
+      int start = trimStart(s);
+      int end = trimEnd(s, start);
+      if (!isDecimal(s, start, end)) {
+        return null;
+      }
+      char[] chars = new char[end - start];
+      s.getChars(start, end, chars, 0);
+      return new BigDecimal(chars);
+    }
+    return null;
+  }
+
+  private static String toDate(Object value) {
+    if (!(value instanceof String s)) {
+      return null;
+    }
+    int len = s.length();
+    if (len < 10 || (len > 10 && s.charAt(10) != 'T' && s.charAt(10) != ' ')) {
+      return null;
+    }
+    if (s.charAt(4) != '-' || s.charAt(7) != '-') {
+      return null;
+    }
+    int year = digits(s, 0, 4);
+    int month = digits(s, 5, 7);
+    int day = digits(s, 8, 10);
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+      return null;
+    }
+    if (len == 10) {
+      return s;
+    }
+    return isTime(s, 11) ? s.substring(0, 10) : null;
+  }
+
+  /**
+   * Whether {@code s} from {@code i} to its end is HH:mm[:ss[.fraction]][Z|+hh:mm|-hh:mm].
+   */
+  private static boolean isTime(String s, int i) {
+    int len = s.length();
+    if (!isClock(s, i, len, 23) || !isClock(s, i + 3, len, 59) || s.charAt(i + 2) != ':') {
+      return false;
+    }
+    i += 5;
+    if (i < len && s.charAt(i) == ':') {
+      if (!isClock(s, i + 1, len, 59)) {
+        return false;
+      }
+      i += 3;
+      if (i < len && s.charAt(i) == '.') {
+        int start = ++i;
+        while (i < len && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+          i++;
+        }
+        if (i == start || i - start > 9) {
+          return false;
+        }
+      }
+    }
+    if (i == len) {
+      return true;
+    }
+    char c = s.charAt(i);
+    if (c == 'Z') {
+      return i + 1 == len;
+    }
+    return (c == '+' || c == '-') && i + 6 == len && isClock(s, i + 1, len, 23) && s.charAt(i + 3) == ':'
+        && isClock(s, i + 4, len, 59);
+  }
+
+  /** Two digits at {@code i} (before {@code len}) forming a value of at most {@code max}. */
+  private static boolean isClock(String s, int i, int len, int max) {
+    if (i + 2 > len) {
+      return false;
+    }
+    int n = digits(s, i, i + 2);
+    return n >= 0 && n <= max;
+  }
+
+  private static Boolean toBoolean(Object value) {
+    if (value instanceof Boolean b) {
+      return b;
+    }
+    if (value instanceof String s) {
+      if ("true".equalsIgnoreCase(s) || "1".equals(s)) {
+        return Boolean.TRUE;
+      }
+      if ("false".equalsIgnoreCase(s) || "0".equals(s)) {
+        return Boolean.FALSE;
+      }
+      return null;
+    }
+    if (value instanceof Integer || value instanceof Long) {
+      long n = ((Number) value).longValue();
+      return (n == 1) ? Boolean.TRUE : (n == 0) ? Boolean.FALSE : null;
+    }
+    return null;
+  }
+
+  /**
+   * Parses [+-]digits[.digits] into a long scaled by 10^fractionDigits. Fraction digits
+   * beyond the scale must be zeros.
+   */
+  private static long parseScaled(String s, int fractionDigits) {
+    int i = trimStart(s);
+    int end = trimEnd(s, i);
+    if (i == end) {
+      return INVALID;
+    }
+    boolean negative = false;
+    char first = s.charAt(i);
+    if (first == '-' || first == '+') {
+      negative = first == '-';
+      i++;
+    }
+    long value = 0;
+    int digits = 0;
+    int fraction = -1;
+    for (; i < end; i++) {
+      char c = s.charAt(i);
+      if (c == '.' && fraction < 0) {
+        fraction = 0;
+        continue;
+      }
+      if (c < '0' || c > '9') {
+        return INVALID;
+      }
+      int d = c - '0';
+      digits++;
+      if (fraction >= 0) {
+        if (fraction == fractionDigits) {
+          if (d != 0) {
+            return INVALID;
+          }
+          continue;
+        }
+        fraction++;
+      }
+      if (value > (Long.MAX_VALUE - d) / 10) {
+        return INVALID;
+      }
+      value = value * 10 + d;
+    }
+    if (digits == 0) {
+      return INVALID;
+    }
+    long scaled = scale(value, fractionDigits - Math.max(fraction, 0));
+    return (scaled == INVALID) ? INVALID : (negative ? -scaled : scaled);
+  }
+
+  private static long scale(long value, int fractionDigits) {
+    if (fractionDigits == 0) {
+      return value;
+    }
+    if (fractionDigits >= POWERS_OF_TEN.length) {
+      return (value == 0) ? 0 : INVALID;
+    }
+    long factor = POWERS_OF_TEN[fractionDigits];
+    long hi = Math.multiplyHigh(value, factor);
+    long lo = value * factor;
+    return ((hi == 0 && lo >= 0) || (hi == -1 && lo < 0)) && lo != INVALID ? lo : INVALID;
+  }
+
+  private static long fromDecimal(BigDecimal value, int fractionDigits) {
+    BigDecimal scaled = value.movePointRight(fractionDigits);
+    if (scaled.signum() != 0 && scaled.stripTrailingZeros().scale() > 0) {
+      return INVALID;
+    }
+    if (scaled.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0 || scaled.compareTo(BigDecimal.valueOf(-Long.MAX_VALUE)) < 0) {
+      return INVALID;
+    }
+    return scaled.longValue();
+  }
+
+  private static boolean isDecimal(String s, int start, int end) {
+    int i = start;
+    if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+      i++;
+    }
+    boolean digit = false;
+    boolean dot = false;
+    for (; i < end; i++) {
+      char c = s.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digit = true;
+      } else if (c == '.' && !dot) {
+        dot = true;
+      } else {
+        return false;
+      }
+    }
+    return digit;
+  }
+
+  private static int digits(String s, int from, int to) {
+    int n = 0;
+    for (int i = from; i < to; i++) {
+      char c = s.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      n = n * 10 + (c - '0');
+    }
+    return n;
+  }
+
+  private static int daysInMonth(int year, int month) {
+    switch (month) {
+      case 2:
+        return ((year % 4 == 0 && year % 100 != 0) || year % 400 == 0) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  private static int trimStart(String s) {
+    int i = 0;
+    while (i < s.length() && s.charAt(i) <= ' ') {
+      i++;
+    }
+    return i;
+  }
+
+  private static int trimEnd(String s, int start) {
+    int end = s.length();
+    while (end > start && s.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    return end;
+  }
+}
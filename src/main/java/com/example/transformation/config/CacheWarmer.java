@@ -1,5 +1,8 @@
 package com.example.transformation.config;
 
+import com.example.transformation.cartridge.CartridgeException;
+import com.example.transformation.cartridge.MappingDefinition;
+import com.example.transformation.cartridge.MappingEngine;
 import com.example.transformation.cartridge.MappingLoader;
 import com.example.transformation.enrich.EnrichmentLoader;
 import jakarta.annotation.PostConstruct;
@@ -13,8 +16,8 @@ import org.springframework.stereotype.Component;
  * 
  * This ensures:
  * - All cartridge contexts are resolved and cached
- * - All mapping definitions are loaded and cached
- * - All enrichment configs are loaded and cached
+ * - All mapping definitions are loaded, their plans compiled and cached (invalid paths are logged)
+ * - All enrichment configs are loaded, compiled and cached
  * - Template existence checks are cached
  */
 @Component
@@ -27,6 +30,7 @@ public class CacheWarmer {
     private final ConfigLoader configLoader;
     private final CartridgeResolver cartridgeResolver;
     private final MappingLoader mappingLoader;
+    private final MappingEngine mappingEngine;
     private final EnrichmentLoader enrichmentLoader;
     private final boolean warmCaches;
 
@@ -34,11 +38,13 @@ public class CacheWarmer {
             ConfigLoader configLoader,
             CartridgeResolver cartridgeResolver,
             MappingLoader mappingLoader,
+            MappingEngine mappingEngine,
             EnrichmentLoader enrichmentLoader,
             @Value("${app.cache.warm-on-startup:true}") boolean warmCaches) {
         this.configLoader = configLoader;
         this.cartridgeResolver = cartridgeResolver;
         this.mappingLoader = mappingLoader;
+        this.mappingEngine = mappingEngine;
         this.enrichmentLoader = enrichmentLoader;
         this.warmCaches = warmCaches;
     }
@@ -68,10 +74,10 @@ public class CacheWarmer {
                     contextsWarmed++;
                     
                     // Pre-load mapping and enrichment
-                    mappingLoader.load(context.mappingPath());
+                    prepareMapping(context.mappingPath());
                     mappingsWarmed++;
                     
-                    enrichmentLoader.loadOptional(context.enrichPath());
+                    enrichmentLoader.loadProgram(context.enrichPath());
                     enrichmentsWarmed++;
                 } catch (Exception e) {
                     log.debug("Skipping base {} {}: {}", cartridgeId, direction, e.getMessage());
@@ -84,10 +90,10 @@ public class CacheWarmer {
                             var context = cartridgeResolver.resolve(cartridgeId, currency, direction);
                             contextsWarmed++;
                             
-                            mappingLoader.load(context.mappingPath());
+                            prepareMapping(context.mappingPath());
                             mappingsWarmed++;
                             
-                            enrichmentLoader.loadOptional(context.enrichPath());
+                            enrichmentLoader.loadProgram(context.enrichPath());
                             enrichmentsWarmed++;
                         }
                     } catch (Exception e) {
@@ -101,4 +107,18 @@ public class CacheWarmer {
         log.info("Cache warming completed in {}ms: {} contexts, {} mappings, {} enrichments",
                 elapsed, contextsWarmed, mappingsWarmed, enrichmentsWarmed);
     }
+
+    /**
+     * Loads the mapping and compiles its plan; a definition with an unusable path is reported
+     * here instead of on the first request.
+     */
+    private void prepareMapping(String mappingPath) {
+        MappingDefinition def = mappingLoader.load(mappingPath);
+        try {
+            mappingEngine.prepare(def);
+        } catch (CartridgeException e) {
+            log.warn("Invalid mapping {}: {}", mappingPath, e.getMessage());
+            throw e;
+        }
+    }
 }
@@ -12,5 +12,9 @@ public record SchemaMasterConfig(Map<String, CartridgeSchema> cartridges) {
         cartridges = cartridges != null ? Map.copyOf(cartridges) : Map.of();
     }
 
-    public record CartridgeSchema(String description, String provider, String inputFormat) {}
+    /**
+     * @param idGenerator optional ID strategy for the cartridge (uuid7, ulid, random);
+     *                    null = app.id.generator
+     */
+    public record CartridgeSchema(String description, String provider, String inputFormat, String idGenerator) {}
 }
@@ -0,0 +1,190 @@
+package com.example.transformation.enrich;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded TTL cache for the results of one enrichment 'call' rule, keyed by a business
+ * identifier read from the body (e.g. payer.customerId).
+ *
+ * Loads are single-flight: concurrent misses for the same key wait for the first loader
+ * instead of calling the bean again. Failed loads are not cached. When the cache grows past
+ * maxEntries, expired entries are dropped first, then the entries closest to expiry (the
+ * oldest, since all share one TTL) until it is back to 90% of the bound.
+ *
+ * Cached results are shared by every record with the same key, so they must not be mutated
+ * once returned; EnrichmentProgram copies Map/List results before storing them in a body.
+ *
+ * Hit, miss and eviction counts are kept for metrics (see EnrichmentLoader).
+ */
+public final class CallResultCache {
+
+  private final String name;
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final ConcurrentHashMap<Object, Entry> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public CallResultCache(String name, long ttlSeconds, int maxEntries) {
+    if (ttlSeconds <= 0 || maxEntries <= 0) {
+      throw new IllegalArgumentException("Enrichment cache for " + name + " needs positive ttlSeconds and maxEntries");
+    }
+    this.name = name;
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    this.maxEntries = maxEntries;
+    this.entries = new ConcurrentHashMap<>(Math.min(maxEntries, 1024));
+  }
+
+  /**
+   * Returns the cached value for {@code key}, or loads it once via {@code loader}.
+   * Exceptions thrown by the loader are propagated to every waiting caller.
+   */
+  public Object get(Object key, Supplier<Object> loader) {
+    while (true) {
+      long now = System.nanoTime();
+      Entry existing = entries.get(key);
+      if (existing != null && !existing.isExpired(now)) {
+        hits.increment();
+        return join(existing.value);
+      }
+      Entry created = new Entry(now + ttlNanos);
+      boolean installed = (existing == null)
+          ? entries.putIfAbsent(key, created) == null
+          : entries.replace(key, existing, created);
+      if (!installed) {
+        continue; // another caller installed an entry first: use it
+      }
+      misses.increment();
+      Object value;
+      try {
+        value = loader.get();
+      } catch (RuntimeException | Error e) {
+        entries.remove(key, created);
+        created.value.completeExceptionally(e);
+        throw e;
+      }
+      created.value.complete(value);
+      if (entries.size() > maxEntries) {
+        evict();
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Returns the live cached value for {@code key}, or null (counted as a miss) when absent,
+   * expired or still loading. Used by batch calls, which load their misses together.
+   */
+  public Object getIfPresent(Object key) {
+    Entry existing = entries.get(key);
+    if (existing != null && !existing.isExpired(System.nanoTime()) && existing.value.isDone()
+        && !existing.value.isCompletedExceptionally()) {
+      hits.increment();
+      return existing.value.join();
+    }
+    misses.increment();
+    return null;
+  }
+
+  /**
+   * Stores a value loaded outside {@link #get} (e.g. by a batch call).
+   */
+  public void put(Object key, Object value) {
+    Entry entry = new Entry(System.nanoTime() + ttlNanos);
+    entry.value.complete(value);
+    entries.put(key, entry);
+    if (entries.size() > maxEntries) {
+      evict();
+    }
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  public long missCount() {
+    return misses.sum();
+  }
+
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  private synchronized void evict() {
+    if (entries.size() <= maxEntries) {
+      return;
+    }
+    long now = System.nanoTime();
+    List<Map.Entry<Object, Entry>> live = new ArrayList<>(entries.size());
+    for (Map.Entry<Object, Entry> e : entries.entrySet()) {
+      if (e.getValue().isExpired(now)) {
+        if (entries.remove(e.getKey(), e.getValue())) {
+          evictions.increment();
+        }
+      } else if (e.getValue().value.isDone()) {
+        live.add(e);
+      }
+    }
+    int excess = entries.size() - (maxEntries - maxEntries / 10);
+    if (excess <= 0) {
+      return;
+    }
+    live.sort((a, b) -> Long.compare(a.getValue().expiresAt, b.getValue().expiresAt));
+    for (int i = 0; i < live.size() && excess > 0; i++) {
+      Map.Entry<Object, Entry> e = live.get(i);
+      if (entries.remove(e.getKey(), e.getValue())) {
+        evictions.increment();
+        excess--;
+      }
+    }
+  }
+
+  private static Object join(CompletableFuture<Object> value) {
+    try {
+      return value.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException re) {
+        throw re;
+      }
+      if (cause instanceof Error err) {
+        throw err;
+      }
+      throw e;
+    }
+  }
+
+  private static final class Entry {
+    final CompletableFuture<Object> value = new CompletableFuture<>();
+    final long expiresAt;
+
+    Entry(long expiresAt) {
+      this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired(long now) {
+      return now - expiresAt > 0;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.example.transformation.enrich;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local stand-in for remote customer/bank lookups, with a configurable simulated latency.
+ *
+ * Used to demonstrate concurrent 'call' rules: each method only reads the paths listed
+ * below, so rules declaring those paths in {@code reads} and writing distinct targets run
+ * in parallel (total latency ~ one lookup instead of the sum).
+ *
+ * Example enrich.yaml:
+ *   - call:
+ *       bean: customerLookupStub
+ *       method: lookupPayer
+ *       target: payerProfile
+ *       reads: [$.payer.customerId]
+ *       cache:
+ *         key: $.payer.customerId
+ *         ttlSeconds: 300
+ *         maxEntries: 10000
+ *   - call:
+ *       bean: customerLookupStub
+ *       method: lookupPayeeBank
+ *       target: payeeBankProfile
+ *       reads: [$.payee.bankCode]
+ */
+@Component("customerLookupStub")
+public class CustomerLookupStub {
+
+    private final long latencyMs;
+
+    public CustomerLookupStub(@Value("${app.enrichment.stub-latency-ms:50}") long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    /**
+     * Reads payer.customerId.
+     */
+    public Map<String, Object> lookupPayer(Map<String, Object> body) {
+        Object customerId = nested(body, "payer", "customerId");
+        simulateLatency();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("customerId", customerId);
+        result.put("customerTier", customerId == null ? "UNKNOWN" : "STANDARD");
+        result.put("kycVerified", customerId != null);
+        return result;
+    }
+
+    /**
+     * Reads payee.bankCode.
+     */
+    public Map<String, Object> lookupPayeeBank(Map<String, Object> body) {
+        Object bankCode = nested(body, "payee", "bankCode");
+        simulateLatency();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bankCode", bankCode);
+        result.put("reachable", bankCode != null);
+        return result;
+    }
+
+    private void simulateLatency() {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lookup interrupted", e);
+        }
+    }
+
+    private static Object nested(Map<String, Object> body, String key, String field) {
+        Object value = body.get(key);
+        return (value instanceof Map<?, ?> m) ? m.get(field) : null;
+    }
+}
@@ -44,9 +44,13 @@ public class EnrichmentConfig {
     public String target;
     /**
      * Static value to set.
-     * Special tokens supported:
-     * - ${now}  -> ISO-8601 timestamp
-     * - ${uuid} -> random UUID
+     * Special tokens supported (see {@link ValueTemplate}):
+     * - ${now}          -> ISO-8601 timestamp (one snapshot per exchange)
+     * - ${now:yyyyMMdd} -> formatted timestamp (UTC)
+     * - ${uuid}         -> new ID (cartridge's idGenerator, time-ordered UUIDv7 by default)
+     * - ${header.name}  -> exchange header
+     * - ${$.a.b}        -> value at a path of the record
+     * Tokens can be combined with text, e.g. "${header.X-Correlation-Id}-${uuid}".
      */
     public Object value;
   }
@@ -68,6 +72,24 @@ public class EnrichmentConfig {
      * If omitted and return type is Map -> merge keys into body.
      */
     public String target;
+    /**
+     * Optional: JSONPath-like paths the bean reads from the body ($.a.b.c). When declared, the
+     * call may run concurrently with earlier calls whose targets it does not read.
+     */
+    public List<String> reads;
+    /** Optional: timeout in milliseconds (default app.enrichment.call-timeout-ms). */
+    public Long timeoutMs;
+    /** Optional: cache results by a business identifier read from the body. */
+    public Cache cache;
+  }
+
+  public static class Cache {
+    /** JSONPath-like key: $.a.b.c (records without a key value bypass the cache). */
+    public String key;
+    /** Time to live of a cached result in seconds. */
+    public long ttlSeconds = 300;
+    /** Maximum number of cached results. */
+    public int maxEntries = 10_000;
   }
 }
 
@@ -1,153 +1,158 @@
 package com.example.transformation.enrich;
 
 import com.example.transformation.cartridge.CartridgeException;
-import com.example.transformation.cartridge.ErrorCodes;
-import com.example.transformation.cartridge.JsonPathMini;
-import java.lang.reflect.Method;
+import com.example.transformation.cartridge.OverlayMap;
+import com.example.transformation.id.IdGenerator;
+import jakarta.annotation.PreDestroy;
 import java.time.Instant;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 /**
- * Engine for applying enrichment rules with optimized method caching.
+ * Engine for applying enrichment rules.
+ *
+ * Rules are executed from an {@link EnrichmentProgram} compiled once per enrich.yaml
+ * (see {@link EnrichmentLoader#loadProgram(String)}); nothing is re-resolved per record.
+ * Independent 'call' rules run concurrently on a dedicated pool when
+ * app.enrichment.call-parallelism is greater than 1; each of those calls is bounded by
+ * app.enrichment.call-timeout-ms (or the rule's timeoutMs) from when it starts running. Calls
+ * outside a concurrent group run on the calling thread. The pool is shut down with the
+ * application context.
  */
 @Component
 public class EnrichmentEngine {
-  
-  // Cache for reflected methods: "className#methodName" -> Method
-  private static final ConcurrentHashMap<String, Method> METHOD_CACHE = new ConcurrentHashMap<>(32);
-  
-  // Pre-computed constant values
-  private static final String TOKEN_NOW = "${now}";
-  private static final String TOKEN_UUID = "${uuid}";
 
-  /**
-   * Returns a new Map with enrichment applied (does not mutate input).
-   */
-  public Map<String, Object> apply(Map<String, Object> input, EnrichmentConfig cfg, ApplicationContext appContext) {
-    if (cfg == null || cfg.rules == null || cfg.rules.isEmpty()) {
-      return new LinkedHashMap<>(input);
-    }
-    
-    Map<String, Object> out = new LinkedHashMap<>(input.size() + cfg.rules.size());
-    out.putAll(input);
+  private final EnrichmentProgram.CallExecutor callExecutor;
 
-    for (EnrichmentConfig.Rule rule : cfg.rules) {
-      if (rule == null) continue;
-      if (!matches(out, rule.when)) {
-        continue;
-      }
-
-      if (rule.set != null) {
-        Object v = resolveValue(rule.set.value);
-        JsonPathMini.put(out, rule.set.target, v);
-      } else if (rule.copy != null) {
-        Object v = JsonPathMini.get(out, rule.copy.source);
-        JsonPathMini.put(out, rule.copy.target, v);
-      } else if (rule.call != null) {
-        applyCall(out, rule.call, appContext);
-      } else {
-        throw new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_RULE_INVALID), CartridgeException.ErrorType.FUNCTIONAL,
-            "Invalid enrichment rule: must contain 'set' or 'copy' or 'call'", null, "ENRICHMENT");
-      }
-    }
+  // Programs compiled for configs passed in directly (identity keyed, like MappingEngine plans)
+  private final ConcurrentHashMap<EnrichmentConfig, EnrichmentProgram> programCache = new ConcurrentHashMap<>(32);
 
-    return out;
+  public EnrichmentEngine(
+      @Value("${app.enrichment.call-parallelism:0}") int callParallelism,
+      @Value("${app.enrichment.call-timeout-ms:2000}") long callTimeoutMs
+  ) {
+    this.callExecutor = (callParallelism > 1)
+        ? new EnrichmentProgram.CallExecutor(newCallPool(callParallelism), callTimeoutMs)
+        : null;
   }
 
-  @SuppressWarnings("unchecked")
-  private void applyCall(Map<String, Object> body, EnrichmentConfig.Call call, ApplicationContext appContext) {
-    if (appContext == null) {
-      throw new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_APP_CONTEXT_MISSING), CartridgeException.ErrorType.TECHNICAL,
-          "Enrichment call requires ApplicationContext but it was null", null, "ENRICHMENT");
-    }
-    if (call.bean == null || call.bean.isEmpty() || call.method == null || call.method.isEmpty()) {
-      throw new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_CALL_MISSING), CartridgeException.ErrorType.FUNCTIONAL,
-          "Enrichment call must specify bean and method", null, "ENRICHMENT");
+  @PreDestroy
+  public void shutdown() {
+    if (callExecutor != null) {
+      callExecutor.pool.shutdownNow();
     }
+  }
 
-    Object bean = appContext.getBean(call.bean);
-    try {
-      Method method = getCachedMethod(bean.getClass(), call.method);
-      Object result = method.invoke(bean, body);
-      
-      if (call.target != null && !call.target.isEmpty()) {
-        JsonPathMini.put(body, call.target, result);
-        return;
-      }
-      if (result instanceof Map<?, ?> m) {
-        body.putAll((Map<String, Object>) m);
-        return;
-      }
-      throw new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_CALL_NOT_MAP), CartridgeException.ErrorType.FUNCTIONAL,
-          "Enrichment call returned non-Map but no target was provided", null, "ENRICHMENT");
-    } catch (CartridgeException e) {
-      throw e;
-    } catch (Exception e) {
-      throw new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_CALL_FAILED), CartridgeException.ErrorType.TECHNICAL,
-          "Failed enrichment call: " + call.bean + "." + call.method + "(Map)", e, null, "ENRICHMENT");
-    }
+  /**
+   * Scope for one exchange: its headers and a single clock snapshot shared by every record.
+   */
+  public EnrichmentProgram.Scope scope(ApplicationContext appContext, Map<String, Object> headers, Instant now) {
+    return scope(appContext, headers, now, null);
   }
 
   /**
-   * Get cached Method object to avoid repeated reflection lookups.
+   * Scope for one exchange whose ${uuid} tokens use {@code ids} (null = default generator).
    */
-  private static Method getCachedMethod(Class<?> clazz, String methodName) throws NoSuchMethodException {
-    String key = clazz.getName() + "#" + methodName;
-    Method cached = METHOD_CACHE.get(key);
-    if (cached != null) {
-      return cached;
-    }
-    
-    Method method = clazz.getMethod(methodName, Map.class);
-    METHOD_CACHE.put(key, method);
-    return method;
+  public EnrichmentProgram.Scope scope(ApplicationContext appContext, Map<String, Object> headers, Instant now,
+      IdGenerator ids) {
+    return new EnrichmentProgram.Scope(appContext, callExecutor, headers, now, ids);
   }
 
-  private static boolean matches(Map<String, Object> current, EnrichmentConfig.When when) {
-    if (when == null) {
-      return true;
-    }
-    Object v = JsonPathMini.get(current, when.path);
+  /**
+   * Returns an {@link OverlayMap} over {@code input} with enrichment applied (does not mutate input).
+   * Only the keys the rules write are stored; everything else reads through to the input.
+   */
+  public Map<String, Object> apply(Map<String, Object> input, EnrichmentProgram program, ApplicationContext appContext) {
+    return apply(input, program, scope(appContext, null, null));
+  }
 
-    if (Boolean.TRUE.equals(when.exists)) {
-      if (v == null) return false;
-      if (v instanceof String s && isBlank(s)) return false;
+  /**
+   * Returns an {@link OverlayMap} over {@code input} with enrichment applied (does not mutate input).
+   */
+  public Map<String, Object> apply(Map<String, Object> input, EnrichmentProgram program, EnrichmentProgram.Scope scope) {
+    if (program == null || program.isEmpty()) {
+      return new OverlayMap(input);
     }
+    return program.apply(input, scope);
+  }
 
-    if (when.equals != null) {
-      String actual = (v == null) ? null : String.valueOf(v);
-      return when.equals.equals(actual);
-    }
+  /**
+   * Enriches a batch of records (see {@link EnrichmentProgram#applyAll}): batch-capable 'call'
+   * rules are invoked once for the whole batch. Failed records get a null result and their
+   * exception in {@code errors}.
+   */
+  public List<Map<String, Object>> applyAll(List<Map<String, Object>> inputs, EnrichmentProgram program,
+      EnrichmentProgram.Scope scope, CartridgeException[] errors) {
+    return program.applyAll(inputs, scope, errors);
+  }
 
-    return true;
+  /**
+   * {@link #applyAll(List, EnrichmentProgram, EnrichmentProgram.Scope, CartridgeException[])} with
+   * the per-record rules run through {@code runner}.
+   */
+  public List<Map<String, Object>> applyAll(List<Map<String, Object>> inputs, EnrichmentProgram program,
+      EnrichmentProgram.Scope scope, CartridgeException[] errors, EnrichmentProgram.RecordRunner runner) {
+    return program.applyAll(inputs, scope, errors, runner);
   }
 
-  private static Object resolveValue(Object value) {
-    if (value instanceof String s) {
-      // Use reference equality first for common case (interned strings)
-      if (TOKEN_NOW.equals(s)) {
-        return Instant.now().toString();
-      }
-      if (TOKEN_UUID.equals(s)) {
-        return UUID.randomUUID().toString();
-      }
+  /**
+   * Returns an {@link OverlayMap} over {@code input} with enrichment applied (does not mutate input).
+   */
+  public Map<String, Object> apply(Map<String, Object> input, EnrichmentConfig cfg, ApplicationContext appContext) {
+    if (cfg == null || cfg.rules == null || cfg.rules.isEmpty()) {
+      return new OverlayMap(input);
     }
-    return value;
+    return apply(input, programCache.computeIfAbsent(cfg, EnrichmentProgram::compile), appContext);
   }
 
   /**
-   * Fast blank check without creating new string objects.
+   * Input paths the rules of {@code cfg} may read, or null when any field may be read
+   * (a 'call' without declared reads hands the whole body to a bean).
    */
-  private static boolean isBlank(String s) {
-    for (int i = 0; i < s.length(); i++) {
-      if (s.charAt(i) > ' ') return false;
+  public Set<String> inputPaths(EnrichmentConfig cfg) {
+    Set<String> paths = new LinkedHashSet<>();
+    if (cfg == null || cfg.rules == null) {
+      return paths;
+    }
+    for (EnrichmentConfig.Rule rule : cfg.rules) {
+      if (rule == null) continue;
+      if (rule.call != null) {
+        if (rule.call.reads == null) {
+          return null;
+        }
+        paths.addAll(rule.call.reads);
+        if (rule.call.cache != null && rule.call.cache.key != null && !rule.call.cache.key.isBlank()) {
+          paths.add(rule.call.cache.key);
+        }
+      }
+      if (rule.when != null && rule.when.path != null) {
+        paths.add(rule.when.path);
+      }
+      if (rule.copy != null && rule.copy.source != null) {
+        paths.add(rule.copy.source);
+      }
+      if (rule.set != null) {
+        paths.addAll(ValueTemplate.paths(rule.set.value));
+      }
     }
-    return true;
+    return paths;
   }
-}
 
+  private static ExecutorService newCallPool(int threads) {
+    AtomicInteger seq = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "enrich-call-" + seq.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+}
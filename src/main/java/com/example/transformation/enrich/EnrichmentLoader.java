@@ -2,13 +2,22 @@ package com.example.transformation.enrich;
 
 import com.example.transformation.cartridge.CartridgeException;
 import com.example.transformation.cartridge.ErrorCodes;
+import com.example.transformation.metrics.MetricNames;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
@@ -21,6 +30,8 @@ import org.springframework.stereotype.Component;
  * - Single shared ObjectMapper (thread-safe)
  * - ConcurrentHashMap cache with computeIfAbsent
  * - Caches both present and absent results (avoids repeated I/O for missing files)
+ * - Compiles each config once into an immutable {@link EnrichmentProgram}
+ * - Exposes hit/miss/eviction/size metrics for the call result caches of each program
  */
 @Component
 public class EnrichmentLoader {
@@ -34,10 +45,14 @@ public class EnrichmentLoader {
             .findAndRegisterModules();
 
     private final ResourceLoader resourceLoader;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final List<Meter> cacheMeters = new CopyOnWriteArrayList<>();
     private final ConcurrentMap<String, Optional<EnrichmentConfig>> cache = new ConcurrentHashMap<>(32);
+    private final ConcurrentMap<String, EnrichmentProgram> programs = new ConcurrentHashMap<>(32);
 
-    public EnrichmentLoader(ResourceLoader resourceLoader) {
+    public EnrichmentLoader(ResourceLoader resourceLoader, ObjectProvider<MeterRegistry> meterRegistry) {
         this.resourceLoader = resourceLoader;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -48,6 +63,47 @@ public class EnrichmentLoader {
         return cache.computeIfAbsent(enrichResourcePath, this::readYamlOptional);
     }
 
+    /**
+     * Loads the compiled enrichment program with O(1) cache lookup after first load.
+     * A missing file compiles to an empty program (also cached).
+     */
+    public EnrichmentProgram loadProgram(String enrichResourcePath) {
+        return programs.computeIfAbsent(enrichResourcePath, this::compile);
+    }
+
+    private EnrichmentProgram compile(String enrichResourcePath) {
+        EnrichmentConfig cfg = loadOptional(enrichResourcePath).orElse(null);
+        try {
+            EnrichmentProgram program = EnrichmentProgram.compile(cfg);
+            registerCacheMetrics(enrichResourcePath, program);
+            return program;
+        } catch (IllegalArgumentException e) {
+            throw new CartridgeException(
+                    ErrorCodes.code(ErrorCodes.ENRICH_RULE_INVALID),
+                    CartridgeException.ErrorType.FUNCTIONAL,
+                    "Invalid enrichment rule in " + enrichResourcePath + ": " + e.getMessage(),
+                    e, null, "ENRICHMENT");
+        }
+    }
+
+    private void registerCacheMetrics(String enrichResourcePath, EnrichmentProgram program) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        for (CallResultCache cache : program.caches()) {
+            Tags tags = Tags.of("config", enrichResourcePath, "call", cache.name());
+            cacheMeters.add(FunctionCounter.builder(MetricNames.ENRICH_CACHE_REQUESTS, cache, CallResultCache::hitCount)
+                    .tags(tags).tag("result", "hit").register(registry));
+            cacheMeters.add(FunctionCounter.builder(MetricNames.ENRICH_CACHE_REQUESTS, cache, CallResultCache::missCount)
+                    .tags(tags).tag("result", "miss").register(registry));
+            cacheMeters.add(FunctionCounter.builder(MetricNames.ENRICH_CACHE_EVICTIONS, cache, CallResultCache::evictionCount)
+                    .tags(tags).register(registry));
+            cacheMeters.add(Gauge.builder(MetricNames.ENRICH_CACHE_SIZE, cache, CallResultCache::size)
+                    .tags(tags).register(registry));
+        }
+    }
+
     private Optional<EnrichmentConfig> readYamlOptional(String enrichResourcePath) {
         Resource resource = resourceLoader.getResource(enrichResourcePath);
         if (!resource.exists()) {
@@ -71,6 +127,12 @@ public class EnrichmentLoader {
      */
     public void clearCache() {
         cache.clear();
+        programs.clear();
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            cacheMeters.forEach(registry::remove);
+        }
+        cacheMeters.clear();
     }
 
     /**
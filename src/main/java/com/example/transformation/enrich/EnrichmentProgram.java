@@ -0,0 +1,887 @@
+package com.example.transformation.enrich;
+
+import com.example.transformation.cartridge.CartridgeException;
+import com.example.transformation.cartridge.ErrorCodes;
+import com.example.transformation.cartridge.JsonPathMini;
+import com.example.transformation.cartridge.OverlayMap;
+import com.example.transformation.id.IdGenerator;
+import com.example.transformation.id.IdGenerators;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntConsumer;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Immutable, pre-compiled form of an {@link EnrichmentConfig}.
+ *
+ * Built once when the enrich.yaml is loaded: condition/copy paths are compiled into
+ * {@link JsonPathMini.Accessor}s, targets into {@link JsonPathMini.Writer}s and set values
+ * into {@link ValueTemplate}s. A 'call' rule resolves its bean and binds the method
+ * to an {@link EnrichmentFunction} on first use (LambdaMetafactory, or a bound MethodHandle
+ * when the method cannot be spun into a lambda); later records invoke it directly.
+ *
+ * Consecutive 'call' rules that do not depend on each other are compiled into one concurrent
+ * group: a call joins the group when it declares the paths it reads ({@code reads}) and none
+ * of them (nor its 'when' or cache key path) overlaps the target of an earlier call in the
+ * group. With a {@link CallExecutor} the group's calls run in parallel against the same body
+ * and their results are written back in declared order once all have returned; without one
+ * they run one after another as before. A grouped call run on the pool is bounded by its
+ * {@code timeoutMs} or the executor's default timeout, counted from when it starts running
+ * (not while it waits in the pool's queue); calls outside a group always run on the calling
+ * thread with no timeout. A call with a {@code cache} block is looked up in its
+ * {@link CallResultCache} by the key path before the bean is invoked.
+ *
+ * For bulk exchanges {@link #applyAll} runs the program over all records. A 'call' whose
+ * bean also has a batch overload ({@link BatchEnrichmentFunction}, same method name taking a
+ * {@code List<Map<String, Object>>}) is then invoked once for every record the rule applies
+ * to, instead of once per record; the rules between batch calls run per record, optionally
+ * in parallel ({@link RecordRunner}).
+ *
+ * Safe to share across threads.
+ */
+public final class EnrichmentProgram {
+
+  /**
+   * Bean method bound to its bean: {@code Object method(Map<String, Object> body)}.
+   */
+  @FunctionalInterface
+  public interface EnrichmentFunction {
+    Object apply(Map<String, Object> body);
+  }
+
+  /**
+   * Batch overload of a bean method bound to its bean:
+   * {@code List<?> method(List<Map<String, Object>> bodies)}, one result per body, in order.
+   */
+  @FunctionalInterface
+  public interface BatchEnrichmentFunction {
+    List<?> apply(List<Map<String, Object>> bodies);
+  }
+
+  /**
+   * Per-exchange inputs of a run: bean lookup, call pool (null = calls on the calling thread),
+   * exchange headers for templates, the clock snapshot every ${now} of the exchange shares
+   * and the cartridge's ID generator for ${uuid} (null = time-ordered UUIDv7).
+   */
+  public static final class Scope {
+    private static final IdGenerator DEFAULT_IDS = IdGenerators.of("uuid7");
+
+    final ApplicationContext appContext;
+    final CallExecutor calls;
+    final Map<String, Object> headers;
+    final Instant now;
+    final IdGenerator ids;
+
+    public Scope(ApplicationContext appContext, CallExecutor calls, Map<String, Object> headers, Instant now) {
+      this(appContext, calls, headers, now, null);
+    }
+
+    public Scope(ApplicationContext appContext, CallExecutor calls, Map<String, Object> headers, Instant now,
+        IdGenerator ids) {
+      this.appContext = appContext;
+      this.calls = calls;
+      this.headers = (headers != null) ? headers : Map.of();
+      this.now = (now != null) ? now : Instant.now();
+      this.ids = (ids != null) ? ids : DEFAULT_IDS;
+    }
+  }
+
+  /**
+   * Pool and default timeout for the 'call' rules of a concurrent group.
+   */
+  public static final class CallExecutor {
+    final ExecutorService pool;
+    final long defaultTimeoutMs;
+
+    public CallExecutor(ExecutorService pool, long defaultTimeoutMs) {
+      this.pool = pool;
+      this.defaultTimeoutMs = defaultTimeoutMs;
+    }
+  }
+
+  private static final EnrichmentProgram EMPTY = new EnrichmentProgram(new Step[0], List.of());
+
+  private final Step[] steps;
+  private final List<CallResultCache> caches;
+
+  private EnrichmentProgram(Step[] steps, List<CallResultCache> caches) {
+    this.steps = steps;
+    this.caches = caches;
+  }
+
+  /**
+   * Compiles the rules of {@code cfg} (null or empty configs compile to a no-op program).
+   *
+   * @throws IllegalArgumentException if a path is not supported by {@link JsonPathMini}
+   */
+  public static EnrichmentProgram compile(EnrichmentConfig cfg) {
+    if (cfg == null || cfg.rules == null || cfg.rules.isEmpty()) {
+      return EMPTY;
+    }
+    List<Step> steps = new ArrayList<>(cfg.rules.size());
+    List<Step> group = new ArrayList<>(4);
+    List<CallResultCache> caches = new ArrayList<>(2);
+    for (EnrichmentConfig.Rule rule : cfg.rules) {
+      if (rule == null) continue;
+      Condition when = Condition.of(rule.when);
+      if (rule.call != null && rule.set == null && rule.copy == null) {
+        CallAction call = new CallAction(rule.call, rule.when);
+        if (call.cache != null) {
+          caches.add(call.cache);
+        }
+        if (!group.isEmpty() && !joins(group, call)) {
+          flush(group, steps);
+        }
+        group.add(new Step(when, call));
+        continue;
+      }
+      flush(group, steps);
+      steps.add(new Step(when, action(rule)));
+    }
+    flush(group, steps);
+    return new EnrichmentProgram(steps.toArray(new Step[0]), List.copyOf(caches));
+  }
+
+  public boolean isEmpty() {
+    return steps.length == 0;
+  }
+
+  /**
+   * Result caches of the 'call' rules that declare a {@code cache} block.
+   */
+  public List<CallResultCache> caches() {
+    return caches;
+  }
+
+  /**
+   * Returns an {@link OverlayMap} over {@code input} with enrichment applied (does not mutate input).
+   * All 'call' rules run on the calling thread.
+   */
+  public Map<String, Object> apply(Map<String, Object> input, ApplicationContext appContext) {
+    return apply(input, new Scope(appContext, null, null, null));
+  }
+
+  /**
+   * Returns an {@link OverlayMap} over {@code input} with enrichment applied (does not mutate input).
+   * Independent 'call' rules run concurrently when the scope has a {@link CallExecutor}.
+   */
+  public Map<String, Object> apply(Map<String, Object> input, Scope scope) {
+    Map<String, Object> out = new OverlayMap(input);
+    for (Step step : steps) {
+      if (step.when == null || step.when.test(out)) {
+        step.action.apply(out, scope);
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Runs a per-record task for record positions 0..count-1 and returns when all are done
+   * (e.g. on the bulk executor). Tasks for different positions touch different records only.
+   */
+  @FunctionalInterface
+  public interface RecordRunner {
+    void run(int count, IntConsumer task);
+
+    RecordRunner SERIAL = (count, task) -> {
+      for (int i = 0; i < count; i++) {
+        task.accept(i);
+      }
+    };
+  }
+
+  /**
+   * {@link #applyAll(List, Scope, CartridgeException[], RecordRunner)} on the calling thread.
+   */
+  public List<Map<String, Object>> applyAll(List<Map<String, Object>> inputs, Scope scope,
+      CartridgeException[] errors) {
+    return applyAll(inputs, scope, errors, RecordRunner.SERIAL);
+  }
+
+  /**
+   * Enriches every input (bulk mode). Batch-capable 'call' rules run once across all records;
+   * the rules between them run record by record through {@code runner}, every record taking
+   * the whole run of rules in one task. Returns one overlay per input; a record whose rule
+   * fails gets its exception in {@code errors} (same index), a null result, and is skipped by
+   * the remaining rules.
+   */
+  public List<Map<String, Object>> applyAll(List<Map<String, Object>> inputs, Scope scope,
+      CartridgeException[] errors, RecordRunner runner) {
+    List<Map<String, Object>> outs = new ArrayList<>(inputs.size());
+    for (Map<String, Object> input : inputs) {
+      outs.add(new OverlayMap(input));
+    }
+    List<Step> perRecord = new ArrayList<>(steps.length);
+    for (Step step : steps) {
+      Step[] members = (step.action instanceof CallGroup group) ? group.calls : new Step[] {step};
+      for (Step member : members) {
+        BatchEnrichmentFunction batch = batchFunction(member, scope);
+        if (batch == null) {
+          perRecord.add(member);
+          continue;
+        }
+        applyPerRecord(perRecord, outs, scope, errors, runner);
+        perRecord.clear();
+        applyBatch(member, batch, outs, errors);
+      }
+    }
+    applyPerRecord(perRecord, outs, scope, errors, runner);
+    for (int i = 0; i < errors.length; i++) {
+      if (errors[i] != null) {
+        outs.set(i, null);
+      }
+    }
+    return outs;
+  }
+
+  /**
+   * True when at least one 'call' rule has a batch overload (binds the calls if needed).
+   */
+  public boolean hasBatchCalls(ApplicationContext appContext) {
+    for (Step step : steps) {
+      Step[] calls = (step.action instanceof CallGroup group) ? group.calls : new Step[] {step};
+      for (Step call : calls) {
+        if (call.action instanceof CallAction action) {
+          try {
+            if (action.batchFunction(appContext) != null) {
+              return true;
+            }
+          } catch (CartridgeException e) {
+            // reported per record when the rule runs
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static BatchEnrichmentFunction batchFunction(Step step, Scope scope) {
+    if (!(step.action instanceof CallAction call)) {
+      return null;
+    }
+    try {
+      return call.batchFunction(scope.appContext);
+    } catch (CartridgeException e) {
+      return null; // reported per record when the rule runs
+    }
+  }
+
+  private static void applyBatch(Step step, BatchEnrichmentFunction batch, List<Map<String, Object>> outs,
+      CartridgeException[] errors) {
+    int n = outs.size();
+    int[] active = new int[n];
+    int count = 0;
+    for (int i = 0; i < n; i++) {
+      if (errors[i] == null && (step.when == null || step.when.test(outs.get(i)))) {
+        active[count++] = i;
+      }
+    }
+    if (count > 0) {
+      ((CallAction) step.action).applyBatch(batch, outs, Arrays.copyOf(active, count), errors);
+    }
+  }
+
+  private static void applyPerRecord(List<Step> run, List<Map<String, Object>> outs, Scope scope,
+      CartridgeException[] errors, RecordRunner runner) {
+    if (run.isEmpty()) {
+      return;
+    }
+    Step[] rules = run.toArray(new Step[0]);
+    runner.run(outs.size(), i -> {
+      if (errors[i] != null) {
+        return;
+      }
+      Map<String, Object> out = outs.get(i);
+      try {
+        for (Step step : rules) {
+          if (step.when == null || step.when.test(out)) {
+            step.action.apply(out, scope);
+          }
+        }
+      } catch (CartridgeException e) {
+        errors[i] = e;
+      }
+    });
+  }
+
+  /**
+   * A call can join the current group when it declares its reads and none of them overlaps
+   * a target written by a call already in the group.
+   */
+  private static boolean joins(List<Step> group, CallAction call) {
+    if (call.reads == null) {
+      return false;
+    }
+    for (Step step : group) {
+      String written = ((CallAction) step.action).writes;
+      if (written == null) {
+        return false;
+      }
+      for (String read : call.reads) {
+        if (overlaps(written, read)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static void flush(List<Step> group, List<Step> steps) {
+    if (group.size() == 1) {
+      steps.add(group.get(0));
+    } else if (group.size() > 1) {
+      steps.add(new Step(null, new CallGroup(group.toArray(new Step[0]))));
+    }
+    group.clear();
+  }
+
+  /**
+   * True when one normalized path is equal to, or nested under, the other.
+   */
+  private static boolean overlaps(String a, String b) {
+    if (a.isEmpty() || b.isEmpty() || a.equals(b)) {
+      return true;
+    }
+    return (a.length() > b.length())
+        ? a.startsWith(b) && a.charAt(b.length()) == '.'
+        : b.startsWith(a) && b.charAt(a.length()) == '.';
+  }
+
+  /**
+   * Reduces a source ($.a.b[0]) or target (a.b) path to its definite dot-separated prefix.
+   */
+  private static String normalize(String path) {
+    String p = path.trim();
+    if (p.startsWith("$")) {
+      p = p.substring(p.startsWith("$.") ? 2 : 1);
+    }
+    for (int i = 0; i < p.length(); i++) {
+      char c = p.charAt(i);
+      if (c == '[' || c == '*') {
+        p = p.substring(0, i);
+        break;
+      }
+    }
+    return p.endsWith(".") ? p.substring(0, p.length() - 1) : p;
+  }
+
+  private static Action action(EnrichmentConfig.Rule rule) {
+    if (rule.set != null) {
+      JsonPathMini.Writer target = JsonPathMini.compileTarget(rule.set.target);
+      ValueTemplate value = ValueTemplate.parse(rule.set.value);
+      return (out, scope) -> target.put(out, value.resolve(out, scope));
+    }
+    if (rule.copy != null) {
+      JsonPathMini.Accessor source = JsonPathMini.compile(rule.copy.source);
+      JsonPathMini.Writer target = JsonPathMini.compileTarget(rule.copy.target);
+      return (out, scope) -> target.put(out, source.get(out));
+    }
+    return (out, scope) -> {
+      throw new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_RULE_INVALID), CartridgeException.ErrorType.FUNCTIONAL,
+          "Invalid enrichment rule: must contain 'set' or 'copy' or 'call'", null, "ENRICHMENT");
+    };
+  }
+
+  @FunctionalInterface
+  private interface Action {
+    void apply(Map<String, Object> out, Scope scope);
+  }
+
+  private static final class Step {
+    final Condition when;
+    final Action action;
+
+    Step(Condition when, Action action) {
+      this.when = when;
+      this.action = action;
+    }
+  }
+
+  private static final class Condition {
+    final JsonPathMini.Accessor path;
+    final boolean exists;
+    final String equals;
+
+    private Condition(JsonPathMini.Accessor path, boolean exists, String equals) {
+      this.path = path;
+      this.exists = exists;
+      this.equals = equals;
+    }
+
+    static Condition of(EnrichmentConfig.When when) {
+      if (when == null) {
+        return null;
+      }
+      return new Condition(JsonPathMini.compile(when.path), Boolean.TRUE.equals(when.exists), when.equals);
+    }
+
+    boolean test(Map<String, Object> current) {
+      Object v = path.get(current);
+      if (exists) {
+        if (v == null) return false;
+        if (v instanceof String s && isBlank(s)) return false;
+      }
+      if (equals != null) {
+        String actual = (v == null) ? null : String.valueOf(v);
+        return equals.equals(actual);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * 'call' rule: bean and method are resolved and bound once, on the first record that reaches it.
+   */
+  private static final class CallAction implements Action {
+    private final EnrichmentConfig.Call call;
+    private final JsonPathMini.Writer target;
+    /** Normalized target path, null when the result Map is merged into the body. */
+    final String writes;
+    /** Normalized declared reads plus the 'when' and cache key paths, null when not declared. */
+    final String[] reads;
+    final CallResultCache cache;
+    private final JsonPathMini.Accessor cacheKey;
+    private volatile EnrichmentFunction function;
+    private volatile Optional<BatchEnrichmentFunction> batchFunction;
+
+    CallAction(EnrichmentConfig.Call call, EnrichmentConfig.When when) {
+      this.call = call;
+      boolean hasTarget = call.target != null && !call.target.isEmpty();
+      this.target = hasTarget ? JsonPathMini.compileTarget(call.target) : null;
+      this.writes = hasTarget ? normalize(call.target) : null;
+      if (call.reads == null) {
+        this.reads = null;
+      } else {
+        List<String> paths = new ArrayList<>(call.reads.size() + 2);
+        for (String read : call.reads) {
+          if (read != null && !read.isBlank()) {
+            paths.add(normalize(read));
+          }
+        }
+        if (when != null && when.path != null) {
+          paths.add(normalize(when.path));
+        }
+        // The cache is looked up and filled by the key's value, so it must not change mid-group
+        if (call.cache != null && call.cache.key != null && !call.cache.key.isBlank()) {
+          paths.add(normalize(call.cache.key));
+        }
+        this.reads = paths.toArray(new String[0]);
+      }
+      if (call.cache == null) {
+        this.cache = null;
+        this.cacheKey = null;
+      } else {
+        if (call.cache.key == null || call.cache.key.isBlank()) {
+          throw new IllegalArgumentException("Enrichment cache for " + call.bean + "." + call.method + " needs a key path");
+        }
+        this.cache = new CallResultCache(call.bean + "." + call.method, call.cache.ttlSeconds, call.cache.maxEntries);
+        this.cacheKey = JsonPathMini.compile(call.cache.key);
+      }
+    }
+
+    @Override
+    public void apply(Map<String, Object> body, Scope scope) {
+      EnrichmentFunction fn = function(scope.appContext);
+      Object result;
+      try {
+        result = fn.apply(body);
+      } catch (CartridgeException e) {
+        throw e;
+      } catch (RuntimeException e) {
+        throw callFailed(e);
+      }
+      store(body, result);
+    }
+
+    EnrichmentFunction function(ApplicationContext appContext) {
+      EnrichmentFunction fn = function;
+      return (fn != null) ? fn : bind(appContext);
+    }
+
+    /**
+     * Batch overload of the bean method, or null when the bean only has the per-record form.
+     */
+    BatchEnrichmentFunction batchFunction(ApplicationContext appContext) {
+      Optional<BatchEnrichmentFunction> fn = batchFunction;
+      if (fn == null) {
+        function(appContext);
+        fn = batchFunction;
+      }
+      return fn.orElse(null);
+    }
+
+    /**
+     * Runs the batch function once for the records at {@code active} (cached keys are served
+     * from the cache and records sharing a key are sent once) and stores the results.
+     */
+    void applyBatch(BatchEnrichmentFunction batch, List<Map<String, Object>> outs, int[] active,
+        CartridgeException[] errors) {
+      int n = active.length;
+      Object[] results = new Object[n];
+      // body index -> positions in 'active' that take its result
+      List<Map<String, Object>> bodies = new ArrayList<>(n);
+      List<int[]> targets = new ArrayList<>(n);
+      Map<Object, Integer> byKey = (cache != null) ? new HashMap<>() : null;
+      Object[] keys = (cache != null) ? new Object[n] : null;
+      for (int j = 0; j < n; j++) {
+        Map<String, Object> body = outs.get(active[j]);
+        if (cache != null) {
+          Object key = cacheKey.get(body);
+          keys[j] = key;
+          if (key != null) {
+            Object cached = cache.getIfPresent(key);
+            if (cached != null) {
+              results[j] = cached;
+              continue;
+            }
+            Integer pending = byKey.get(key);
+            if (pending != null) {
+              int[] prev = targets.get(pending);
+              int[] next = Arrays.copyOf(prev, prev.length + 1);
+              next[prev.length] = j;
+              targets.set(pending, next);
+              continue;
+            }
+            byKey.put(key, bodies.size());
+          }
+        }
+        bodies.add(body);
+        targets.add(new int[] {j});
+      }
+      if (!bodies.isEmpty()) {
+        List<?> loaded = null;
+        try {
+          loaded = batch.apply(bodies);
+          if (loaded == null || loaded.size() != bodies.size()) {
+            throw new IllegalStateException("Batch call returned " + (loaded == null ? "null" : loaded.size() + " results")
+                + " for " + bodies.size() + " records");
+          }
+        } catch (CartridgeException e) {
+          loaded = null;
+          failAll(targets, active, errors, e);
+        } catch (RuntimeException e) {
+          loaded = null;
+          failAll(targets, active, errors, callFailed(e));
+        }
+        // On failure only the loaded records fail; cached ones are still stored below
+        if (loaded != null) {
+          for (int b = 0; b < bodies.size(); b++) {
+            Object value = loaded.get(b);
+            int[] positions = targets.get(b);
+            for (int j : positions) {
+              results[j] = value;
+            }
+            if (cache != null && keys[positions[0]] != null) {
+              cache.put(keys[positions[0]], value);
+            }
+          }
+        }
+      }
+      for (int j = 0; j < n; j++) {
+        if (errors[active[j]] != null) {
+          continue;
+        }
+        try {
+          store(outs.get(active[j]), results[j]);
+        } catch (CartridgeException e) {
+          errors[active[j]] = e;
+        }
+      }
+    }
+
+    private static void failAll(List<int[]> targets, int[] active, CartridgeException[] errors, CartridgeException e) {
+      for (int[] positions : targets) {
+        for (int j : positions) {
+          errors[active[j]] = e;
+        }
+      }
+    }
+
+    /**
+     * Waits for a pooled invocation until it has run for this call's timeout; time spent
+     * queued behind other calls does not count.
+     */
+    Object await(TimedCall future, CallExecutor calls) {
+      long timeoutMs = (call.timeoutMs != null) ? call.timeoutMs : calls.defaultTimeoutMs;
+      try {
+        future.started.await();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs) - (System.nanoTime() - future.startNanos);
+        return future.get(Math.max(remaining, 0L), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        future.cancel(true);
+        throw new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_CALL_TIMEOUT), CartridgeException.ErrorType.TECHNICAL,
+            "Enrichment call timed out after " + timeoutMs + "ms: " + call.bean + "." + call.method + "(Map)", e, null, "ENRICHMENT");
+      } catch (ExecutionException e) {
+        Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+        if (cause instanceof CartridgeException ce) {
+          throw ce;
+        }
+        throw callFailed(cause);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        future.cancel(true);
+        throw callFailed(e);
+      }
+    }
+
+    /**
+     * Writes a call result into the body. Results of a cached call are shared by every record
+     * (and request) with the same key, so a Map/List result is copied first: later rules
+     * writing under the target then change this record's copy, never the cached value.
+     */
+    @SuppressWarnings("unchecked")
+    void store(Map<String, Object> body, Object result) {
+      if (cache != null) {
+        result = copyOf(result);
+      }
+      if (target != null) {
+        target.put(body, result);
+        return;
+      }
+      if (result instanceof Map<?, ?> m) {
+        body.putAll((Map<String, Object>) m);
+        return;
+      }
+      throw new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_CALL_NOT_MAP), CartridgeException.ErrorType.FUNCTIONAL,
+          "Enrichment call returned non-Map but no target was provided", null, "ENRICHMENT");
+    }
+
+    /** Deep copy of nested Maps/Lists; other values are returned as is. */
+    static Object copyOf(Object value) {
+      if (value instanceof Map<?, ?> m) {
+        Map<Object, Object> copy = new LinkedHashMap<>(Math.max(4, (int) (m.size() / 0.75f) + 1));
+        for (Map.Entry<?, ?> e : m.entrySet()) {
+          copy.put(e.getKey(), copyOf(e.getValue()));
+        }
+        return copy;
+      }
+      if (value instanceof List<?> list) {
+        List<Object> copy = new ArrayList<>(list.size());
+        for (Object e : list) {
+          copy.add(copyOf(e));
+        }
+        return copy;
+      }
+      return value;
+    }
+
+    private synchronized EnrichmentFunction bind(ApplicationContext appContext) {
+      if (function != null) {
+        return function;
+      }
+      if (appContext == null) {
+        throw new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_APP_CONTEXT_MISSING), CartridgeException.ErrorType.TECHNICAL,
+            "Enrichment call requires ApplicationContext but it was null", null, "ENRICHMENT");
+      }
+      if (call.bean == null || call.bean.isEmpty() || call.method == null || call.method.isEmpty()) {
+        throw new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_CALL_MISSING), CartridgeException.ErrorType.FUNCTIONAL,
+            "Enrichment call must specify bean and method", null, "ENRICHMENT");
+      }
+      try {
+        Object bean = appContext.getBean(call.bean);
+        EnrichmentFunction fn = bindMethod(bean, call.method);
+        batchFunction = Optional.ofNullable(bindBatchMethod(bean, call.method));
+        if (cache != null) {
+          EnrichmentFunction load = fn;
+          fn = body -> {
+            Object key = cacheKey.get(body);
+            return (key == null) ? load.apply(body) : cache.get(key, () -> load.apply(body));
+          };
+        }
+        function = fn;
+        return fn;
+      } catch (CartridgeException e) {
+        throw e;
+      } catch (Throwable e) {
+        throw callFailed(e);
+      }
+    }
+
+    private CartridgeException callFailed(Throwable e) {
+      return new CartridgeException(ErrorCodes.code(ErrorCodes.ENRICH_CALL_FAILED), CartridgeException.ErrorType.TECHNICAL,
+          "Failed enrichment call: " + call.bean + "." + call.method + "(Map)", e, null, "ENRICHMENT");
+    }
+  }
+
+  /**
+   * Independent consecutive 'call' rules. Conditions are tested and functions bound on the
+   * calling thread, the invocations run on the executor against the unchanged body, and the
+   * results are stored in declared order only after every call has returned (the body is
+   * not thread-safe, so nothing is written while a call may still be reading it).
+   */
+  private static final class CallGroup implements Action {
+    private final Step[] calls;
+
+    CallGroup(Step[] calls) {
+      this.calls = calls;
+    }
+
+    @Override
+    public void apply(Map<String, Object> body, Scope scope) {
+      CallExecutor executor = scope.calls;
+      if (executor == null) {
+        for (Step step : calls) {
+          if (step.when == null || step.when.test(body)) {
+            step.action.apply(body, scope);
+          }
+        }
+        return;
+      }
+      int n = calls.length;
+      TimedCall[] futures = new TimedCall[n];
+      Object[] results = new Object[n];
+      try {
+        for (int i = 0; i < n; i++) {
+          Step step = calls[i];
+          if (step.when == null || step.when.test(body)) {
+            EnrichmentFunction fn = ((CallAction) step.action).function(scope.appContext);
+            futures[i] = new TimedCall(() -> fn.apply(body));
+            executor.pool.execute(futures[i]);
+          }
+        }
+        for (int i = 0; i < n; i++) {
+          if (futures[i] != null) {
+            results[i] = ((CallAction) calls[i].action).await(futures[i], executor);
+          }
+        }
+      } finally {
+        for (TimedCall f : futures) {
+          if (f != null && !f.isDone()) {
+            f.cancel(true);
+          }
+        }
+      }
+      for (int i = 0; i < n; i++) {
+        if (futures[i] != null) {
+          ((CallAction) calls[i].action).store(body, results[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Pooled call invocation that records when a worker picks it up, so its timeout starts there.
+   */
+  private static final class TimedCall extends FutureTask<Object> {
+    final CountDownLatch started = new CountDownLatch(1);
+    volatile long startNanos;
+
+    TimedCall(Callable<Object> task) {
+      super(task);
+    }
+
+    @Override
+    public void run() {
+      startNanos = System.nanoTime();
+      started.countDown();
+      super.run();
+    }
+
+    @Override
+    protected void done() {
+      // cancelled before a worker ran it
+      started.countDown();
+    }
+  }
+
+  /**
+   * Binds {@code bean.methodName(Map)} into an {@link EnrichmentFunction}.
+   */
+  static EnrichmentFunction bindMethod(Object bean, String methodName) throws Throwable {
+    Method method = bean.getClass().getMethod(methodName, Map.class);
+    MethodHandle handle = MethodHandles.lookup().unreflect(method);
+    EnrichmentFunction spun = spin(bean, method, handle, EnrichmentFunction.class, Object.class, Map.class);
+    if (spun != null) {
+      return spun;
+    }
+    // e.g. void or primitive return types, or a class the lookup cannot spin a lambda for
+    MethodHandle bound = handle.bindTo(bean).asType(MethodType.methodType(Object.class, Map.class));
+    return body -> {
+      try {
+        return bound.invokeExact(body);
+      } catch (RuntimeException | Error ex) {
+        throw ex;
+      } catch (Throwable ex) {
+        throw new IllegalStateException(ex);
+      }
+    };
+  }
+
+  /**
+   * Binds {@code bean.methodName(List)} into a {@link BatchEnrichmentFunction}, or returns null
+   * when the bean has no batch overload returning a List.
+   */
+  static BatchEnrichmentFunction bindBatchMethod(Object bean, String methodName) throws Throwable {
+    Method method;
+    try {
+      method = bean.getClass().getMethod(methodName, List.class);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+    if (!List.class.isAssignableFrom(method.getReturnType())) {
+      return null;
+    }
+    MethodHandle handle = MethodHandles.lookup().unreflect(method);
+    BatchEnrichmentFunction spun = spin(bean, method, handle, BatchEnrichmentFunction.class, List.class, List.class);
+    if (spun != null) {
+      return spun;
+    }
+    MethodHandle bound = handle.bindTo(bean).asType(MethodType.methodType(List.class, List.class));
+    return bodies -> {
+      try {
+        return (List<?>) bound.invokeExact(bodies);
+      } catch (RuntimeException | Error ex) {
+        throw ex;
+      } catch (Throwable ex) {
+        throw new IllegalStateException(ex);
+      }
+    };
+  }
+
+  /**
+   * Spins a lambda of {@code iface} (single method 'apply') bound to {@code bean} via
+   * LambdaMetafactory, or returns null when the method cannot be adapted that way.
+   */
+  private static <T> T spin(Object bean, Method method, MethodHandle handle, Class<T> iface,
+      Class<?> returnType, Class<?> paramType) {
+    try {
+      MethodType sam = MethodType.methodType(returnType, paramType);
+      CallSite site = LambdaMetafactory.metafactory(
+          MethodHandles.lookup(),
+          "apply",
+          MethodType.methodType(iface, method.getDeclaringClass()),
+          sam,
+          handle,
+          sam);
+      return iface.cast(site.getTarget().invoke(bean));
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+  private static boolean isBlank(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      if (s.charAt(i) > ' ') return false;
+    }
+    return true;
+  }
+}
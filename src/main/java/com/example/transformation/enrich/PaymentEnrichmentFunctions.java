@@ -1,6 +1,10 @@
 package com.example.transformation.enrich;
 
+import com.example.transformation.cartridge.BankIdentifiers;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +18,8 @@ import org.springframework.stereotype.Component;
  * Convention:
  *   - Method signature: Object methodName(Map<String, Object> body)
  *   - Returns a Map that will be merged into the body, or a single value if 'target' is specified
+ *   - Optional batch overload: List<?> methodName(List<Map<String, Object>> bodies), one result
+ *     per body in order; used automatically for bulk requests
  */
 @Component("paymentEnrichmentFunctions")
 public class PaymentEnrichmentFunctions {
@@ -140,10 +146,59 @@ public class PaymentEnrichmentFunctions {
     }
     
     /**
-     * Validate and normalize IBAN format.
-     * 
+     * Batch form of {@link #calculateRiskScore(Map)} for bulk requests.
+     */
+    public List<Map<String, Object>> calculateRiskScore(List<Map<String, Object>> bodies) {
+        List<Map<String, Object>> results = new ArrayList<>(bodies.size());
+        for (Map<String, Object> body : bodies) {
+            results.add(calculateRiskScore(body));
+        }
+        return results;
+    }
+
+    /**
+     * Batch form of {@link #enrichPayerDetails(Map)} for bulk requests: each distinct
+     * customerId is looked up once.
+     */
+    public List<Map<String, Object>> enrichPayerDetails(List<Map<String, Object>> bodies) {
+        Map<String, Map<String, Object>> byCustomer = new HashMap<>();
+        List<Map<String, Object>> results = new ArrayList<>(bodies.size());
+        for (Map<String, Object> body : bodies) {
+            Map<?, ?> payer = extractMap(body, "payer");
+            Object customerId = (payer == null) ? null : payer.get("customerId");
+            if (customerId instanceof String id && !id.isBlank()) {
+                // One lookup per customer, but each record gets its own result it may modify
+                results.add(copyResult(byCustomer.computeIfAbsent(id, k -> enrichPayerDetails(body))));
+            } else {
+                results.add(new LinkedHashMap<>());
+            }
+        }
+        log.debug("Enriched payer details for {} records ({} distinct customers)", bodies.size(), byCustomer.size());
+        return results;
+    }
+
+    /** Copy of a result map and of its nested maps. */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> copyResult(Map<String, Object> result) {
+        Map<String, Object> copy = new LinkedHashMap<>(result);
+        for (Map.Entry<String, Object> e : copy.entrySet()) {
+            if (e.getValue() instanceof Map<?, ?> nested) {
+                e.setValue(copyResult((Map<String, Object>) nested));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Validate and normalize the payee IBAN and BIC.
+     *
+     * Uses {@link BankIdentifiers} (single char loop, mod-97 check digits, no regex).
+     * payee.normalizedAccount is the account without whitespace in upper case;
+     * payee.ibanValid tells whether it is a valid IBAN. A valid payee.bic is returned
+     * normalized as payee.normalizedBic.
+     *
      * @param body The incoming payment message
-     * @return Map containing normalized IBAN if valid
+     * @return Map containing the normalized account and its IBAN validity
      */
     public Map<String, Object> normalizeIban(Map<String, Object> body) {
         Map<String, Object> result = new LinkedHashMap<>();
@@ -153,11 +208,16 @@ public class PaymentEnrichmentFunctions {
             return result;
         }
         
-        String accountNumber = (String) payee.get("accountNumber");
-        if (accountNumber != null) {
-            // Remove spaces and convert to uppercase
-            String normalized = accountNumber.replaceAll("\\s+", "").toUpperCase();
-            result.put("payee.normalizedAccount", normalized);
+        if (payee.get("accountNumber") instanceof String accountNumber) {
+            String iban = BankIdentifiers.normalizeIban(accountNumber);
+            result.put("payee.normalizedAccount", (iban != null) ? iban : compact(accountNumber));
+            result.put("payee.ibanValid", iban != null);
+        }
+        if (payee.get("bic") instanceof String bic) {
+            String normalizedBic = BankIdentifiers.normalizeBic(bic);
+            if (normalizedBic != null) {
+                result.put("payee.normalizedBic", normalizedBic);
+            }
         }
         
         return result;
@@ -167,6 +227,24 @@ public class PaymentEnrichmentFunctions {
     // Helper methods
     // =========================================================================
     
+    /**
+     * Removes whitespace and upper-cases in one pass (non-IBAN account numbers).
+     */
+    private static String compact(String value) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            char u = Character.toUpperCase(c);
+            if (sb == null && (c != u || Character.isWhitespace(c))) {
+                sb = new StringBuilder(value.length()).append(value, 0, i);
+            }
+            if (sb != null && !Character.isWhitespace(c)) {
+                sb.append(u);
+            }
+        }
+        return (sb == null) ? value : sb.toString();
+    }
+    
     private Double extractAmount(Map<String, Object> body) {
         Object amount = body.get("amount");
         if (amount instanceof Number n) {
@@ -0,0 +1,214 @@
+package com.example.transformation.enrich;
+
+import com.example.transformation.cartridge.JsonPathMini;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-parsed 'set' value of an enrichment rule.
+ *
+ * String values may contain tokens, parsed once when the config is compiled:
+ * - ${now}           -> ISO-8601 timestamp of the request's clock snapshot
+ * - ${now:yyyyMMdd}  -> the same instant formatted (UTC) with a cached DateTimeFormatter
+ * - ${uuid}          -> new ID from the scope's generator (time-ordered UUIDv7 by default)
+ * - ${header.name}   -> exchange header value
+ * - ${$.a.b}         -> value at a path of the record being enriched
+ *
+ * A value that is exactly one header or path token keeps the referenced value's type;
+ * anything else renders to a String (missing references render as empty). Non-string
+ * values and strings without tokens are constants.
+ */
+public abstract class ValueTemplate {
+
+  // Formatters by pattern, shared by every template using the same pattern
+  private static final ConcurrentHashMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>(8);
+
+  /**
+   * Resolves the value for one record.
+   *
+   * @param record the record being enriched (for path references)
+   * @param scope exchange headers, clock snapshot and ID generator
+   */
+  public abstract Object resolve(Map<String, Object> record, EnrichmentProgram.Scope scope);
+
+  /**
+   * Parses {@code value} into a template.
+   *
+   * @throws IllegalArgumentException for unknown or unterminated tokens
+   */
+  public static ValueTemplate parse(Object value) {
+    if (!(value instanceof String s) || s.indexOf("${") < 0) {
+      return new Constant(value);
+    }
+    List<Part> parts = new ArrayList<>(4);
+    int pos = 0;
+    while (pos < s.length()) {
+      int open = s.indexOf("${", pos);
+      if (open < 0) {
+        parts.add(new Literal(s.substring(pos)));
+        break;
+      }
+      if (open > pos) {
+        parts.add(new Literal(s.substring(pos, open)));
+      }
+      int close = s.indexOf('}', open + 2);
+      if (close < 0) {
+        throw new IllegalArgumentException("Unterminated token in set value: " + s);
+      }
+      parts.add(token(s.substring(open + 2, close).trim(), s));
+      pos = close + 1;
+    }
+    if (parts.size() == 1) {
+      return new Single(parts.get(0));
+    }
+    return new Composite(parts.toArray(new Part[0]));
+  }
+
+  /**
+   * Record paths referenced by {@code value}'s ${$.path} tokens (empty for non-templates).
+   */
+  public static List<String> paths(Object value) {
+    if (!(value instanceof String s) || s.indexOf("${$.") < 0) {
+      return List.of();
+    }
+    List<String> paths = new ArrayList<>(2);
+    int open = s.indexOf("${$.");
+    while (open >= 0) {
+      int close = s.indexOf('}', open);
+      if (close < 0) {
+        break;
+      }
+      paths.add(s.substring(open + 2, close).trim());
+      open = s.indexOf("${$.", close);
+    }
+    return paths;
+  }
+
+  private static Part token(String token, String source) {
+    if (token.equals("now")) {
+      return new Now(null);
+    }
+    if (token.startsWith("now:")) {
+      String pattern = token.substring(4);
+      return new Now(FORMATTERS.computeIfAbsent(pattern,
+          p -> DateTimeFormatter.ofPattern(p).withZone(ZoneOffset.UTC)));
+    }
+    if (token.equals("uuid")) {
+      return (record, scope) -> scope.ids.nextId();
+    }
+    if (token.startsWith("header.") && token.length() > 7) {
+      String name = token.substring(7);
+      return (record, scope) -> scope.headers.get(name);
+    }
+    if (token.startsWith("$.")) {
+      JsonPathMini.Accessor path = JsonPathMini.compile(token);
+      return (record, scope) -> path.get(record);
+    }
+    throw new IllegalArgumentException("Unknown token '${" + token + "}' in set value: " + source);
+  }
+
+  @FunctionalInterface
+  private interface Part {
+    Object value(Map<String, Object> record, EnrichmentProgram.Scope scope);
+  }
+
+  private static final class Literal implements Part {
+    private final String text;
+
+    Literal(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public Object value(Map<String, Object> record, EnrichmentProgram.Scope scope) {
+      return text;
+    }
+  }
+
+  /**
+   * Clock token. Keeps the last rendering so every record of an exchange (same snapshot)
+   * formats the instant once.
+   */
+  private static final class Now implements Part {
+    private final DateTimeFormatter formatter;
+    private volatile Rendered last;
+
+    Now(DateTimeFormatter formatter) {
+      this.formatter = formatter;
+    }
+
+    @Override
+    public Object value(Map<String, Object> record, EnrichmentProgram.Scope scope) {
+      Instant now = scope.now;
+      Rendered r = last;
+      if (r != null && r.at.equals(now)) {
+        return r.text;
+      }
+      String text = (formatter == null) ? now.toString() : formatter.format(now);
+      last = new Rendered(now, text);
+      return text;
+    }
+  }
+
+  private static final class Rendered {
+    final Instant at;
+    final String text;
+
+    Rendered(Instant at, String text) {
+      this.at = at;
+      this.text = text;
+    }
+  }
+
+  private static final class Constant extends ValueTemplate {
+    private final Object value;
+
+    Constant(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> record, EnrichmentProgram.Scope scope) {
+      return value;
+    }
+  }
+
+  /** Exactly one token: header and path references keep the referenced value's type. */
+  private static final class Single extends ValueTemplate {
+    private final Part part;
+
+    Single(Part part) {
+      this.part = part;
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> record, EnrichmentProgram.Scope scope) {
+      return part.value(record, scope);
+    }
+  }
+
+  private static final class Composite extends ValueTemplate {
+    private final Part[] parts;
+
+    Composite(Part[] parts) {
+      this.parts = parts;
+    }
+
+    @Override
+    public Object resolve(Map<String, Object> record, EnrichmentProgram.Scope scope) {
+      StringBuilder sb = new StringBuilder(32);
+      for (Part part : parts) {
+        Object v = part.value(record, scope);
+        if (v != null) {
+          sb.append(v);
+        }
+      }
+      return sb.toString();
+    }
+  }
+}
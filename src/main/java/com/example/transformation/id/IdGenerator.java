@@ -0,0 +1,12 @@
+package com.example.transformation.id;
+
+/**
+ * Generates request/record identifiers.
+ *
+ * Implementations must be thread-safe and must not contend on shared state per call.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+  String nextId();
+}
@@ -0,0 +1,71 @@
+package com.example.transformation.id;
+
+import com.example.transformation.config.ConfigLoader;
+import com.example.transformation.config.model.SchemaMasterConfig;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the {@link IdGenerator} of a cartridge.
+ *
+ * Strategies: uuid7 (time-ordered UUID, default), ulid, random (UUID.randomUUID).
+ * The default comes from app.id.generator and can be overridden per cartridge with
+ * idGenerator in schema-master.yaml. Lookups are cached per cartridge.
+ */
+@Component
+public class IdGenerators {
+
+  private static final IdGenerator UUID7 = new UuidV7Generator();
+  private static final IdGenerator ULID = new UlidGenerator();
+  private static final IdGenerator RANDOM = () -> UUID.randomUUID().toString();
+
+  private final ConfigLoader configLoader;
+  private final IdGenerator defaultGenerator;
+  private final ConcurrentHashMap<String, IdGenerator> byCartridge = new ConcurrentHashMap<>(16);
+
+  public IdGenerators(ConfigLoader configLoader, @Value("${app.id.generator:uuid7}") String defaultStrategy) {
+    this.configLoader = configLoader;
+    this.defaultGenerator = of(defaultStrategy);
+  }
+
+  /**
+   * Generator for {@code cartridgeId}, or the default when the cartridge is unknown/null.
+   */
+  public IdGenerator forCartridge(String cartridgeId) {
+    if (cartridgeId == null) {
+      return defaultGenerator;
+    }
+    return byCartridge.computeIfAbsent(cartridgeId, this::resolve);
+  }
+
+  public IdGenerator defaultGenerator() {
+    return defaultGenerator;
+  }
+
+  private IdGenerator resolve(String cartridgeId) {
+    SchemaMasterConfig.CartridgeSchema schema = configLoader.getSchemaMasterConfig().cartridges().get(cartridgeId);
+    if (schema == null || schema.idGenerator() == null || schema.idGenerator().isBlank()) {
+      return defaultGenerator;
+    }
+    return of(schema.idGenerator());
+  }
+
+  /**
+   * @throws IllegalArgumentException for an unknown strategy name
+   */
+  public static IdGenerator of(String strategy) {
+    switch (strategy.trim().toLowerCase(Locale.ROOT)) {
+      case "uuid7":
+        return UUID7;
+      case "ulid":
+        return ULID;
+      case "random":
+        return RANDOM;
+      default:
+        throw new IllegalArgumentException("Unknown id generator: " + strategy + " (expected uuid7, ulid or random)");
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.example.transformation.id;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Monotonic ULID: 48-bit Unix millisecond timestamp and 80 random bits, as 26 Crockford
+ * base32 characters that sort lexicographically in time order.
+ *
+ * State is thread-local: within one millisecond a thread increments the previous random
+ * part by one (borrowing the next millisecond on overflow), so its IDs strictly increase.
+ */
+public final class UlidGenerator implements IdGenerator {
+
+  private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+  private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+  @Override
+  public String nextId() {
+    State s = STATE.get();
+    long now = System.currentTimeMillis();
+    if (now > s.millis) {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      s.millis = now;
+      s.hi = random.nextInt(0x10000);
+      s.lo = random.nextLong();
+    } else if (++s.lo == 0 && ++s.hi > 0xFFFF) {
+      s.millis++;
+      s.hi = 0;
+    }
+    char[] out = new char[26];
+    // 48-bit time -> 10 chars (top 2 bits are zero)
+    long t = s.millis;
+    for (int i = 9; i >= 0; i--) {
+      out[i] = BASE32[(int) (t & 31)];
+      t >>>= 5;
+    }
+    // 80 random bits (hi:16, lo:64) -> 16 chars of 5 bits
+    long lo = s.lo;
+    long hi = s.hi;
+    for (int i = 25; i >= 10; i--) {
+      out[i] = BASE32[(int) (lo & 31)];
+      lo = (lo >>> 5) | ((hi & 31) << 59);
+      hi >>>= 5;
+    }
+    return new String(out);
+  }
+
+  private static final class State {
+    long millis;
+    int hi;
+    long lo;
+  }
+}
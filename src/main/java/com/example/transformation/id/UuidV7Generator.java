@@ -0,0 +1,65 @@
+package com.example.transformation.id;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered UUID version 7 (RFC 9562): 48-bit Unix millisecond timestamp, 12-bit counter,
+ * 62 random bits.
+ *
+ * State is thread-local: within one thread IDs are strictly increasing (the counter is
+ * bumped inside a millisecond and borrows the next millisecond on overflow); across threads
+ * they are ordered by millisecond. Randomness comes from ThreadLocalRandom rather than the
+ * shared SecureRandom behind UUID.randomUUID, so IDs are unique but not unguessable.
+ */
+public final class UuidV7Generator implements IdGenerator {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+  @Override
+  public String nextId() {
+    State s = STATE.get();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long now = System.currentTimeMillis();
+    if (now > s.millis) {
+      s.millis = now;
+      s.counter = random.nextInt(0x800); // lower half leaves room to count up
+    } else if (++s.counter > 0xFFF) {
+      s.millis++;
+      s.counter = 0;
+    }
+    long msb = (s.millis << 16) | 0x7000L | s.counter;
+    long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+    return format(msb, lsb);
+  }
+
+  /**
+   * Canonical 8-4-4-4-12 lowercase form, written straight into one char array.
+   */
+  static String format(long msb, long lsb) {
+    char[] out = new char[36];
+    hex(out, 0, msb >>> 32, 8);
+    out[8] = '-';
+    hex(out, 9, msb >>> 16, 4);
+    out[13] = '-';
+    hex(out, 14, msb, 4);
+    out[18] = '-';
+    hex(out, 19, lsb >>> 48, 4);
+    out[23] = '-';
+    hex(out, 24, lsb, 12);
+    return new String(out);
+  }
+
+  private static void hex(char[] out, int offset, long value, int digits) {
+    for (int i = offset + digits - 1; i >= offset; i--) {
+      out[i] = HEX[(int) (value & 0xF)];
+      value >>>= 4;
+    }
+  }
+
+  private static final class State {
+    long millis;
+    int counter;
+  }
+}
@@ -6,6 +6,16 @@ public final class MetricNames {
   public static final String REQUEST_TIMER = "transformation.request";
   public static final String STAGE_TIMER = "transformation.stage";
   public static final String OUTBOUND_HTTP_TIMER = "transformation.http.client";
+  public static final String ENRICH_CACHE_REQUESTS = "transformation.enrich.cache.requests";
+  public static final String ENRICH_CACHE_EVICTIONS = "transformation.enrich.cache.evictions";
+  public static final String ENRICH_CACHE_SIZE = "transformation.enrich.cache.size";
+  public static final String BULK_QUEUED_RECORDS = "transformation.bulk.queued.records";
+  public static final String BULK_QUEUED_CHUNKS = "transformation.bulk.queued.chunks";
+  public static final String BULK_WAIT = "transformation.bulk.wait";
+  public static final String BULK_REJECTED = "transformation.bulk.rejected";
+  public static final String BULK_RECORD_COST = "transformation.bulk.record.cost";
+  public static final String BULK_CHUNK_SIZE = "transformation.bulk.chunk.size";
+  public static final String BULK_DECISIONS = "transformation.bulk.decisions";
 }
 
 
@@ -2,6 +2,11 @@ package com.example.transformation.processor;
 
 import com.example.transformation.cartridge.CartridgeException;
 import com.example.transformation.cartridge.ErrorCodes;
+import com.example.transformation.cartridge.ValidationResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class BulkError {
   private final String code;
@@ -38,11 +43,32 @@ public class BulkError {
     return step;
   }
 
+  /**
+   * Writes the error as the same object the getters describe (null fields included).
+   */
+  public void writeTo(JsonGenerator gen) throws IOException {
+    gen.writeStartObject();
+    gen.writeStringField("code", code);
+    gen.writeStringField("type", type);
+    gen.writeStringField("message", message);
+    gen.writeStringField("field", field);
+    gen.writeStringField("step", step);
+    gen.writeEndObject();
+  }
+
   public static BulkError from(CartridgeException e) {
     String type = e.getType() == CartridgeException.ErrorType.TECHNICAL ? "TECHNICAL" : "FUNCTIONAL";
     return new BulkError(e.getCode(), type, e.getMessage(), e.getField(), e.getStep());
   }
 
+  public static List<BulkError> from(ValidationResult result) {
+    List<BulkError> errors = new ArrayList<>(result.size());
+    for (int i = 0; i < result.size(); i++) {
+      errors.add(new BulkError(result.code(i), "FUNCTIONAL", result.message(i), result.field(i), result.step(i)));
+    }
+    return errors;
+  }
+
   public static BulkError functional(String message, String field, String step) {
     return new BulkError(ErrorCodes.code(ErrorCodes.GENERIC_FUNCTIONAL), "FUNCTIONAL", message, field, step);
   }
@@ -0,0 +1,360 @@
+package com.example.transformation.processor;
+
+import com.example.transformation.cartridge.CartridgeException;
+import com.example.transformation.cartridge.ErrorCodes;
+import com.example.transformation.metrics.MetricNames;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared worker pool for bulk record processing (enrich and transform stages).
+ *
+ * - Bounded: one pool of app.bulk.parallelism threads for every request; at most
+ *   app.bulk.max-queued-records records are admitted at a time. A request that does not
+ *   get admitted within app.bulk.admission-timeout-ms is rejected with bulk.rejected.
+ * - Fair: records are split into chunks of app.bulk.chunk-size and workers take chunks
+ *   round-robin across the admitted requests, so a large batch cannot starve small ones.
+ * - Adaptive (app.bulk.adaptive): the per-record cost of each cartridge and step is measured
+ *   online (EWMA of busy time per record). A batch whose estimated cost is below
+ *   app.bulk.inline-threshold-us runs inline on the calling thread; a larger one is split
+ *   into chunks of about app.bulk.target-chunk-us each, and at most one chunk per worker
+ *   as long as there are fewer records than that. Until a cartridge has been measured,
+ *   chunks have at most app.bulk.chunk-size records.
+ * - Observable: queued records and chunks (gauges), admission and queue wait (timers),
+ *   rejections (counter); per cartridge and step the estimated record cost (gauge), the
+ *   inline/parallel decisions and the last chunk size.
+ *
+ * A failing chunk makes the remaining chunks of its request skip; {@link #run} throws only
+ * after every chunk already running has finished. The pool is shut down with the
+ * application context.
+ *
+ * With parallelism 0 or 1 records are processed on the calling thread.
+ */
+@Component
+public class BulkExecutor {
+
+  // EWMA weight of the newest cost sample
+  private static final double COST_ALPHA = 0.2;
+
+  private final int parallelism;
+  private final int chunkSize;
+  private final int maxQueuedRecords;
+  private final long admissionTimeoutMs;
+  private final boolean adaptive;
+  private final long inlineThresholdNanos;
+  private final long targetChunkNanos;
+  private final ExecutorService pool;
+  private final Semaphore admission;
+  private final MeterRegistry registry;
+
+  // Cost profile by cartridge and step
+  private final ConcurrentHashMap<String, Profile> profiles = new ConcurrentHashMap<>(32);
+
+  // Requests with chunks left to start, in round-robin order
+  private final ArrayDeque<Job> ready = new ArrayDeque<>();
+
+  private final AtomicInteger queuedChunks = new AtomicInteger();
+  private final LongAdder admissionWaits = new LongAdder();
+  private final LongAdder admissionWaitNanos = new LongAdder();
+  private final LongAdder queueWaits = new LongAdder();
+  private final LongAdder queueWaitNanos = new LongAdder();
+  private final LongAdder rejections = new LongAdder();
+
+  public BulkExecutor(
+      ObjectProvider<MeterRegistry> meterRegistry,
+      @Value("${app.bulk.parallelism:0}") int parallelism,
+      @Value("${app.bulk.chunk-size:64}") int chunkSize,
+      @Value("${app.bulk.max-queued-records:50000}") int maxQueuedRecords,
+      @Value("${app.bulk.admission-timeout-ms:5000}") long admissionTimeoutMs,
+      @Value("${app.bulk.adaptive:false}") boolean adaptive,
+      @Value("${app.bulk.inline-threshold-us:2000}") long inlineThresholdUs,
+      @Value("${app.bulk.target-chunk-us:1000}") long targetChunkUs
+  ) {
+    if (chunkSize <= 0 || maxQueuedRecords <= 0 || targetChunkUs <= 0) {
+      throw new IllegalArgumentException(
+          "app.bulk.chunk-size, app.bulk.max-queued-records and app.bulk.target-chunk-us must be positive");
+    }
+    this.parallelism = parallelism;
+    this.chunkSize = chunkSize;
+    this.maxQueuedRecords = maxQueuedRecords;
+    this.admissionTimeoutMs = admissionTimeoutMs;
+    this.adaptive = adaptive;
+    this.inlineThresholdNanos = TimeUnit.MICROSECONDS.toNanos(inlineThresholdUs);
+    this.targetChunkNanos = TimeUnit.MICROSECONDS.toNanos(targetChunkUs);
+    this.pool = (parallelism > 1) ? newBulkPool(parallelism) : null;
+    this.admission = new Semaphore(maxQueuedRecords, true);
+    this.registry = (pool != null) ? meterRegistry.getIfAvailable() : null;
+    registerMetrics();
+  }
+
+  /**
+   * Applies {@code work} to every record and returns when all are done. {@code work} is
+   * expected to record per-record failures on the record; anything it throws fails the
+   * whole call with a technical error for {@code step}.
+   *
+   * @param cartridgeId key of the cost profile (with {@code step}); may be null
+   * @throws CartridgeException bulk.rejected when the executor stays saturated past the admission timeout
+   */
+  public void run(String cartridgeId, List<BulkRecord> records, Consumer<BulkRecord> work, String step) {
+    if (pool == null || records.isEmpty()) {
+      records.forEach(work);
+      return;
+    }
+    Profile profile = adaptive ? profiles.computeIfAbsent(String.valueOf(cartridgeId) + '/' + step,
+        k -> newProfile(String.valueOf(cartridgeId), step)) : null;
+    int chunk = chunkSize;
+    if (profile != null) {
+      double cost = profile.nanosPerRecord;
+      if (records.size() == 1 || (cost > 0 && cost * records.size() <= inlineThresholdNanos)) {
+        runInline(profile, records, work);
+        return;
+      }
+      chunk = profile.chunkSize(records.size(), cost);
+    }
+    int permits = Math.min(records.size(), maxQueuedRecords);
+    acquire(permits, records.size(), step);
+    Job job = new Job(records, work, chunk);
+    try {
+      schedule(job);
+      job.done.get();
+      if (profile != null) {
+        profile.parallel.increment();
+        profile.sample(job.busyNanos.sum(), records.size());
+      }
+    } catch (InterruptedException e) {
+      // Skip the chunks not started yet, but return only once running ones have finished
+      job.fail(e);
+      awaitQuietly(job);
+      Thread.currentThread().interrupt();
+      throw failed(step, e);
+    } catch (ExecutionException e) {
+      throw failed(step, e.getCause());
+    } finally {
+      admission.release(permits);
+    }
+  }
+
+  private static void awaitQuietly(Job job) {
+    try {
+      job.done.join();
+    } catch (RuntimeException e) {
+      // completed with the failure already being reported
+    }
+  }
+
+  private static void runInline(Profile profile, List<BulkRecord> records, Consumer<BulkRecord> work) {
+    long start = System.nanoTime();
+    records.forEach(work);
+    profile.inline.increment();
+    profile.sample(System.nanoTime() - start, records.size());
+  }
+
+  private void acquire(int permits, int records, String step) {
+    long start = System.nanoTime();
+    boolean admitted;
+    try {
+      admitted = admission.tryAcquire(permits, admissionTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      admitted = false;
+    }
+    admissionWaits.increment();
+    admissionWaitNanos.add(System.nanoTime() - start);
+    if (!admitted) {
+      rejections.increment();
+      throw new CartridgeException(ErrorCodes.code(ErrorCodes.BULK_REJECTED), CartridgeException.ErrorType.TECHNICAL,
+          "Bulk executor saturated: " + records + " records not admitted within " + admissionTimeoutMs + " ms",
+          null, step);
+    }
+  }
+
+  private void schedule(Job job) {
+    synchronized (ready) {
+      ready.addLast(job);
+    }
+    queuedChunks.addAndGet(job.chunks);
+    for (int i = 0; i < job.chunks; i++) {
+      pool.execute(this::runNextChunk);
+    }
+  }
+
+  /**
+   * One task per chunk; each task runs the next chunk of the request at the head of the
+   * round-robin queue, so consecutive tasks serve different requests.
+   */
+  private void runNextChunk() {
+    Job job;
+    int chunk;
+    synchronized (ready) {
+      job = ready.pollFirst();
+      chunk = job.nextChunk++;
+      if (job.nextChunk < job.chunks) {
+        ready.addLast(job);
+      }
+    }
+    queuedChunks.decrementAndGet();
+    queueWaits.increment();
+    queueWaitNanos.add(System.nanoTime() - job.scheduledAt);
+    if (job.failure != null) {
+      job.chunkDone();
+      return; // an earlier chunk failed: skip the rest
+    }
+    int from = chunk * job.chunkSize;
+    int to = Math.min(from + job.chunkSize, job.records.size());
+    long start = System.nanoTime();
+    try {
+      for (int i = from; i < to; i++) {
+        job.work.accept(job.records.get(i));
+      }
+    } catch (RuntimeException | Error e) {
+      job.fail(e);
+    }
+    job.busyNanos.add(System.nanoTime() - start);
+    job.chunkDone();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (pool != null) {
+      pool.shutdownNow();
+    }
+  }
+
+  private static CartridgeException failed(String step, Throwable cause) {
+    return new CartridgeException(ErrorCodes.code(ErrorCodes.GENERIC_TECHNICAL), CartridgeException.ErrorType.TECHNICAL,
+        "Bulk parallel processing failed", cause, null, step);
+  }
+
+  private void registerMetrics() {
+    if (registry == null) {
+      return;
+    }
+    Gauge.builder(MetricNames.BULK_QUEUED_RECORDS, admission, a -> maxQueuedRecords - a.availablePermits())
+        .register(registry);
+    Gauge.builder(MetricNames.BULK_QUEUED_CHUNKS, queuedChunks, AtomicInteger::get).register(registry);
+    FunctionTimer.builder(MetricNames.BULK_WAIT, this, e -> e.admissionWaits.sum(), e -> e.admissionWaitNanos.sum(),
+        TimeUnit.NANOSECONDS).tag("phase", "admission").register(registry);
+    FunctionTimer.builder(MetricNames.BULK_WAIT, this, e -> e.queueWaits.sum(), e -> e.queueWaitNanos.sum(),
+        TimeUnit.NANOSECONDS).tag("phase", "queue").register(registry);
+    FunctionCounter.builder(MetricNames.BULK_REJECTED, rejections, LongAdder::sum).register(registry);
+  }
+
+  private Profile newProfile(String cartridgeId, String step) {
+    Profile profile = new Profile();
+    if (registry != null) {
+      Tags tags = Tags.of("cartridge", cartridgeId, "step", step);
+      Gauge.builder(MetricNames.BULK_RECORD_COST, profile, p -> p.nanosPerRecord).tags(tags).baseUnit("nanoseconds")
+          .register(registry);
+      Gauge.builder(MetricNames.BULK_CHUNK_SIZE, profile, p -> p.lastChunkSize).tags(tags).register(registry);
+      FunctionCounter.builder(MetricNames.BULK_DECISIONS, profile.inline, LongAdder::sum).tags(tags)
+          .tag("mode", "inline").register(registry);
+      FunctionCounter.builder(MetricNames.BULK_DECISIONS, profile.parallel, LongAdder::sum).tags(tags)
+          .tag("mode", "parallel").register(registry);
+    }
+    return profile;
+  }
+
+  private static ExecutorService newBulkPool(int threads) {
+    AtomicInteger seq = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "bulk-" + seq.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Measured cost of one cartridge/step and the decisions taken from it.
+   */
+  private final class Profile {
+    volatile double nanosPerRecord; // 0 = not measured yet
+    volatile int lastChunkSize;
+    final LongAdder inline = new LongAdder();
+    final LongAdder parallel = new LongAdder();
+
+    synchronized void sample(long busyNanos, int records) {
+      double cost = (double) busyNanos / records;
+      double current = nanosPerRecord;
+      nanosPerRecord = (current == 0) ? cost : current + COST_ALPHA * (cost - current);
+    }
+
+    /**
+     * Records per chunk: about targetChunkNanos of work (the static chunk size until the
+     * first measurement), but small enough to give every worker a chunk.
+     */
+    int chunkSize(int records, double cost) {
+      long size = (cost > 0) ? Math.max(1L, (long) (targetChunkNanos / cost)) : chunkSize;
+      int perWorker = (records + parallelism - 1) / parallelism;
+      int chunk = (int) Math.min(size, perWorker);
+      lastChunkSize = chunk;
+      return chunk;
+    }
+  }
+
+  /**
+   * One admitted request: its records split into chunks.
+   */
+  private static final class Job {
+    final List<BulkRecord> records;
+    final Consumer<BulkRecord> work;
+    final int chunkSize;
+    final int chunks;
+    final long scheduledAt = System.nanoTime();
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+    final AtomicInteger remaining;
+    final LongAdder busyNanos = new LongAdder();
+    volatile Throwable failure;
+    int nextChunk; // guarded by ready
+
+    Job(List<BulkRecord> records, Consumer<BulkRecord> work, int chunkSize) {
+      this.records = records;
+      this.work = work;
+      this.chunkSize = chunkSize;
+      this.chunks = (records.size() + chunkSize - 1) / chunkSize;
+      this.remaining = new AtomicInteger(chunks);
+    }
+
+    /** Records the first failure; chunks not started yet are skipped from now on. */
+    void fail(Throwable e) {
+      synchronized (this) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+
+    /**
+     * Completes {@link #done} once every chunk has finished or been skipped, so the caller
+     * never sees the records while a worker may still be writing to them.
+     */
+    void chunkDone() {
+      if (remaining.decrementAndGet() == 0) {
+        Throwable e = failure;
+        if (e == null) {
+          done.complete(null);
+        } else {
+          done.completeExceptionally(e);
+        }
+      }
+    }
+  }
+}
@@ -1,6 +1,9 @@
 package com.example.transformation.processor;
 
-import java.util.LinkedHashMap;
+import com.example.transformation.cartridge.MappedOutput;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 public class BulkRecord {
@@ -9,6 +12,7 @@ public class BulkRecord {
   private Object output;
   private String contentType;
   private BulkError error;
+  private List<BulkError> errors;
 
   public BulkRecord(int index, Map<String, Object> input) {
     this.index = index;
@@ -51,21 +55,51 @@ public class BulkRecord {
     this.error = error;
   }
 
+  public List<BulkError> getErrors() {
+    return errors;
+  }
+
+  /**
+   * Records every violation of the record; the first one is also exposed as {@link #getError()}.
+   */
+  public void setErrors(List<BulkError> errors) {
+    this.errors = errors;
+    this.error = errors.isEmpty() ? null : errors.get(0);
+  }
+
   public boolean hasError() {
     return error != null;
   }
 
-  public Map<String, Object> toResponse() {
-    Map<String, Object> out = new LinkedHashMap<>();
-    out.put("index", index);
+  /**
+   * Writes the record's bulk envelope: {@code index}, {@code success} and either
+   * {@code contentType}/{@code body} or {@code error} (plus {@code errors} when collected).
+   * Hand-written so large bulk responses need no per-record Map and no bean introspection.
+   */
+  public void writeTo(JsonGenerator gen) throws IOException {
+    gen.writeStartObject();
+    gen.writeNumberField("index", index);
     if (error != null) {
-      out.put("success", false);
-      out.put("error", error);
-      return out;
+      gen.writeBooleanField("success", false);
+      gen.writeFieldName("error");
+      error.writeTo(gen);
+      if (errors != null) {
+        gen.writeArrayFieldStart("errors");
+        for (int i = 0, n = errors.size(); i < n; i++) {
+          errors.get(i).writeTo(gen);
+        }
+        gen.writeEndArray();
+      }
+    } else {
+      gen.writeBooleanField("success", true);
+      gen.writeStringField("contentType", contentType);
+      gen.writeFieldName("body");
+      if (output instanceof MappedOutput mapped) {
+        mapped.writeTo(gen);
+      } else {
+        gen.writeObject(output);
+      }
     }
-    out.put("success", true);
-    out.put("contentType", contentType);
-    out.put("body", output);
-    return out;
+    gen.writeEndObject();
   }
 }
@@ -0,0 +1,79 @@
+package com.example.transformation.processor;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Body of a bulk response: the processed records, written in the requested
+ * {@link BulkResponseMode} when serialized by Jackson.
+ * - full / errors-only: JSON array of bulk envelopes (see {@link BulkRecord#writeTo}), all
+ *   records or the failed ones only
+ * - summary: {@code {"total", "succeeded", "failed", "failures": [envelopes of failed records]}}
+ *
+ * Returned by the controller as is, so the HTTP message converter streams the records to the
+ * response's output stream through its JsonGenerator; no per-record response Map is built.
+ */
+public final class BulkResponse implements JsonSerializable {
+  private final List<BulkRecord> records;
+  private final BulkResponseMode mode;
+
+  public BulkResponse(List<BulkRecord> records, BulkResponseMode mode) {
+    this.records = records;
+    this.mode = mode;
+  }
+
+  public List<BulkRecord> records() {
+    return records;
+  }
+
+  public BulkResponseMode mode() {
+    return mode;
+  }
+
+  public void writeTo(JsonGenerator gen) throws IOException {
+    if (mode == BulkResponseMode.SUMMARY) {
+      int failed = 0;
+      for (int i = 0, n = records.size(); i < n; i++) {
+        if (records.get(i).hasError()) {
+          failed++;
+        }
+      }
+      gen.writeStartObject();
+      gen.writeNumberField("total", records.size());
+      gen.writeNumberField("succeeded", records.size() - failed);
+      gen.writeNumberField("failed", failed);
+      gen.writeFieldName("failures");
+      writeRecords(gen, true);
+      gen.writeEndObject();
+      return;
+    }
+    writeRecords(gen, mode == BulkResponseMode.ERRORS_ONLY);
+  }
+
+  private void writeRecords(JsonGenerator gen, boolean failedOnly) throws IOException {
+    gen.writeStartArray();
+    for (int i = 0, n = records.size(); i < n; i++) {
+      BulkRecord record = records.get(i);
+      if (!failedOnly || record.hasError()) {
+        record.writeTo(gen);
+      }
+    }
+    gen.writeEndArray();
+  }
+
+  @Override
+  public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+    writeTo(gen);
+  }
+
+  @Override
+  public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+      throws IOException {
+    // Bulk responses are plain JSON; no type information is ever written
+    writeTo(gen);
+  }
+}
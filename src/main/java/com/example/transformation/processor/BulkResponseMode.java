@@ -0,0 +1,55 @@
+package com.example.transformation.processor;
+
+import com.example.transformation.cartridge.CartridgeException;
+import com.example.transformation.cartridge.ErrorCodes;
+
+/**
+ * What a bulk response returns, chosen per request (X-Bulk-Response header or
+ * {@code response} query parameter):
+ * - full        -> every record's envelope, including the transformed body (default)
+ * - errors-only -> the envelopes of failed records only
+ * - summary     -> total/succeeded/failed counts plus the failed records' indices and errors
+ *
+ * Outside full mode the transformed bodies are not kept once a record has been processed,
+ * unless payload persistence is enabled (TRANSFORM_OUT always receives every record).
+ */
+public enum BulkResponseMode {
+  FULL("full"),
+  ERRORS_ONLY("errors-only"),
+  SUMMARY("summary");
+
+  private final String value;
+
+  BulkResponseMode(String value) {
+    this.value = value;
+  }
+
+  public String value() {
+    return value;
+  }
+
+  /** Whether successful records' outputs are part of the response. */
+  public boolean returnsOutputs() {
+    return this == FULL;
+  }
+
+  /**
+   * Parses a header / query value (case-insensitive); null or blank means {@link #FULL}.
+   *
+   * @throws CartridgeException (functional) for unknown values
+   */
+  public static BulkResponseMode parse(String value) {
+    if (value == null || value.isBlank()) {
+      return FULL;
+    }
+    String v = value.trim();
+    for (BulkResponseMode mode : values()) {
+      if (mode.value.equalsIgnoreCase(v)) {
+        return mode;
+      }
+    }
+    throw new CartridgeException(ErrorCodes.code(ErrorCodes.BULK_RESPONSE_MODE), CartridgeException.ErrorType.FUNCTIONAL,
+        "Unknown bulk response mode '" + value + "' (expected full, errors-only or summary)",
+        ExchangeKeys.BULK_RESPONSE_HEADER, "VALIDATION");
+  }
+}
@@ -1,16 +1,15 @@
 package com.example.transformation.processor;
 
 import com.example.transformation.cartridge.CartridgeException;
-import com.example.transformation.cartridge.ErrorCodes;
 import com.example.transformation.config.model.ResolvedCartridgeContext;
-import com.example.transformation.enrich.EnrichmentConfig;
 import com.example.transformation.enrich.EnrichmentEngine;
 import com.example.transformation.enrich.EnrichmentLoader;
-import java.util.LinkedHashMap;
+import com.example.transformation.enrich.EnrichmentProgram;
+import com.example.transformation.id.IdGenerators;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ForkJoinPool;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.springframework.context.ApplicationContext;
@@ -25,26 +24,35 @@ import org.springframework.stereotype.Component;
  * - trim bic (if present)
  *
  * Add any derived/default fields here before mapping.
+ *
+ * With app.bulk.pipeline=fused, bulk records are not enriched here: the exchange's scope is
+ * handed to {@link TransformProcessor}, which enriches and maps each record in one task
+ * (see {@link #enrichRecord}). Programs with batch 'call' rules still run as a separate pass:
+ * each batch call once for all records, the rules between them per record on the executor.
  */
 @Component("enrich")
 public class EnrichProcessor implements Processor {
   private final EnrichmentLoader enrichmentLoader;
   private final EnrichmentEngine engine;
   private final ApplicationContext appContext;
-  private final int bulkParallelism;
-  private final ForkJoinPool bulkPool;
+  private final IdGenerators idGenerators;
+  private final BulkExecutor bulkExecutor;
+  private final boolean fusedBulk;
 
   public EnrichProcessor(
       EnrichmentLoader enrichmentLoader,
       EnrichmentEngine engine,
       ApplicationContext appContext,
-      @Value("${app.bulk.parallelism:0}") int bulkParallelism
+      IdGenerators idGenerators,
+      BulkExecutor bulkExecutor,
+      @Value("${app.bulk.pipeline:staged}") String bulkPipeline
   ) {
     this.enrichmentLoader = enrichmentLoader;
     this.engine = engine;
     this.appContext = appContext;
-    this.bulkParallelism = bulkParallelism;
-    this.bulkPool = (bulkParallelism > 1) ? new ForkJoinPool(bulkParallelism) : null;
+    this.idGenerators = idGenerators;
+    this.bulkExecutor = bulkExecutor;
+    this.fusedBulk = isFused(bulkPipeline);
   }
 
   @SuppressWarnings("unchecked")
@@ -54,24 +62,24 @@ public class EnrichProcessor implements Processor {
     ResolvedCartridgeContext context = exchange.getProperty(
         ExchangeKeys.RESOLVED_CONTEXT_PROP, ResolvedCartridgeContext.class);
 
+    // One clock snapshot per exchange: every ${now} of every record shares it
+    EnrichmentProgram.Scope scope = newScope(context, exchange.getMessage().getHeaders());
+
     Object body = exchange.getMessage().getBody();
     if (body instanceof List<?> list) {
       List<BulkRecord> records = (List<BulkRecord>) list;
-      runInParallel(records, record -> {
-        if (record.hasError()) {
-          return;
-        }
-        Map<String, Object> input = record.getInput();
-        if (input == null) {
-          record.setError(BulkError.functional("Missing input for enrichment", null, "ENRICHMENT"));
-          return;
-        }
-        try {
-          record.setInput(applyEnrichment(context, input));
-        } catch (CartridgeException e) {
-          record.setError(BulkError.from(e));
-        }
-      });
+      EnrichmentProgram program = program(context);
+      if (program != null && program.hasBatchCalls(appContext)) {
+        enrichBatch(cartridgeId(context), records, program, scope);
+        exchange.getMessage().setBody(records);
+        return;
+      }
+      if (fusedBulk) {
+        // Enriched per record by TransformProcessor, in the same task as the mapping
+        exchange.setProperty(ExchangeKeys.DEFERRED_ENRICH_SCOPE_PROP, scope);
+        return;
+      }
+      bulkExecutor.run(cartridgeId(context), records, record -> enrichRecord(context, record, scope), "ENRICHMENT");
       exchange.getMessage().setBody(records);
       return;
     }
@@ -80,38 +88,118 @@ public class EnrichProcessor implements Processor {
       return;
     }
 
-    Map<String, Object> copy = new LinkedHashMap<>((Map<String, Object>) m);
-
-    // Cartridge-specific enrichment rules using resolved context
-    copy = applyEnrichment(context, copy);
+    // Cartridge-specific enrichment rules using resolved context (input is not mutated)
+    exchange.getMessage().setBody(applyEnrichment(context, (Map<String, Object>) m, scope));
+  }
 
-    exchange.getMessage().setBody(copy);
+  /**
+   * Bulk enrichment through {@link EnrichmentEngine#applyAll} so batch-capable 'call' rules see
+   * every record at once; the other rules run per record on the {@link BulkExecutor}, and
+   * currency/bic normalization then runs per record.
+   */
+  private void enrichBatch(String cartridgeId, List<BulkRecord> records, EnrichmentProgram program,
+      EnrichmentProgram.Scope scope) {
+    List<BulkRecord> pending = new ArrayList<>(records.size());
+    List<Map<String, Object>> inputs = new ArrayList<>(records.size());
+    for (BulkRecord record : records) {
+      if (record.hasError()) {
+        continue;
+      }
+      if (record.getInput() == null) {
+        record.setError(BulkError.functional("Missing input for enrichment", null, "ENRICHMENT"));
+        continue;
+      }
+      pending.add(record);
+      inputs.add(record.getInput());
+    }
+    // Record index -> position in 'pending' (the runner's task positions)
+    int maxIndex = -1;
+    for (BulkRecord record : pending) {
+      maxIndex = Math.max(maxIndex, record.getIndex());
+    }
+    int[] positionOf = new int[maxIndex + 1];
+    for (int i = 0; i < pending.size(); i++) {
+      positionOf[pending.get(i).getIndex()] = i;
+    }
+    EnrichmentProgram.RecordRunner runner = (count, task) -> bulkExecutor.run(cartridgeId, pending,
+        record -> task.accept(positionOf[record.getIndex()]), "ENRICHMENT");
+    CartridgeException[] errors = new CartridgeException[inputs.size()];
+    List<Map<String, Object>> enriched = engine.applyAll(inputs, program, scope, errors, runner);
+    for (int i = 0; i < pending.size(); i++) {
+      BulkRecord record = pending.get(i);
+      if (errors[i] != null) {
+        record.setError(BulkError.from(errors[i]));
+      } else {
+        record.setInput(normalize(enriched.get(i)));
+      }
+    }
   }
 
-  private void runInParallel(List<BulkRecord> records, java.util.function.Consumer<BulkRecord> work) {
-    if (bulkParallelism <= 1) {
-      records.forEach(work);
+  /**
+   * Enriches one bulk record in place; failures are recorded on the record.
+   */
+  void enrichRecord(ResolvedCartridgeContext context, BulkRecord record, EnrichmentProgram.Scope scope) {
+    if (record.hasError()) {
+      return;
+    }
+    Map<String, Object> input = record.getInput();
+    if (input == null) {
+      record.setError(BulkError.functional("Missing input for enrichment", null, "ENRICHMENT"));
       return;
     }
     try {
-      bulkPool.submit(() -> records.parallelStream().forEach(work)).get();
-    } catch (Exception e) {
-      throw new CartridgeException(ErrorCodes.code(ErrorCodes.GENERIC_TECHNICAL), CartridgeException.ErrorType.TECHNICAL,
-          "Bulk parallel enrichment failed", e, null, "ENRICHMENT");
+      record.setInput(applyEnrichment(context, input, scope));
+    } catch (CartridgeException e) {
+      record.setError(BulkError.from(e));
     }
   }
 
-  private Map<String, Object> applyEnrichment(ResolvedCartridgeContext context, Map<String, Object> input) {
-    Map<String, Object> copy = new LinkedHashMap<>(input);
-
+  /**
+   * Enriches a single record (overlay over input, cartridge rules, currency/bic normalization).
+   * Only changed keys are stored; the input map itself is never copied or mutated.
+   */
+  Map<String, Object> applyEnrichment(ResolvedCartridgeContext context, Map<String, Object> input,
+      EnrichmentProgram.Scope scope) {
     // Cartridge-specific enrichment rules using resolved enrich path
-    if (context != null && context.enrichPath() != null) {
-      Optional<EnrichmentConfig> cfg = enrichmentLoader.loadOptional(context.enrichPath());
-      if (cfg.isPresent()) {
-        copy = engine.apply(copy, cfg.get(), appContext);
-      }
+    return normalize(engine.apply(input, program(context), scope));
+  }
+
+  /**
+   * Scope for one exchange (or streamed request): headers for templates, one clock snapshot
+   * and the cartridge's ID generator.
+   */
+  EnrichmentProgram.Scope newScope(ResolvedCartridgeContext context, Map<String, Object> headers) {
+    return engine.scope(appContext, headers, Instant.now(), idGenerators.forCartridge(cartridgeId(context)));
+  }
+
+  /**
+   * app.bulk.pipeline: staged (one pass per processor) or fused (enrich + transform per record).
+   */
+  static boolean isFused(String bulkPipeline) {
+    switch (bulkPipeline.trim().toLowerCase(java.util.Locale.ROOT)) {
+      case "fused":
+        return true;
+      case "staged":
+        return false;
+      default:
+        throw new IllegalArgumentException("Unknown app.bulk.pipeline: " + bulkPipeline + " (expected staged or fused)");
     }
+  }
+
+  private static String cartridgeId(ResolvedCartridgeContext context) {
+    return (context != null) ? context.cartridgeId() : null;
+  }
+
+  private EnrichmentProgram program(ResolvedCartridgeContext context) {
+    return (context != null && context.enrichPath() != null)
+        ? enrichmentLoader.loadProgram(context.enrichPath())
+        : null;
+  }
 
+  /**
+   * Currency uppercase/trim and bic trim on the enriched record.
+   */
+  private static Map<String, Object> normalize(Map<String, Object> copy) {
     Object currency = copy.get("currency");
     if (currency instanceof String s && !s.isBlank()) {
       copy.put("currency", s.trim().toUpperCase());
@@ -6,8 +6,13 @@ public final class ExchangeKeys {
   public static final String CARTRIDGE_ID_HEADER = "X-Cartridge-Id";
   public static final String CURRENCY_HEADER = "X-Currency";
   public static final String DIRECTION_HEADER = "X-Direction";
+  public static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
   public static final String MAPPING_DEF_PROP = "mappingDefinition";
   public static final String BULK_HEADER = "X-Bulk-Request";
+  public static final String BULK_RESPONSE_HEADER = "X-Bulk-Response";
   public static final String RESOLVED_CONTEXT_PROP = "resolvedCartridgeContext";
+  public static final String DEFERRED_ENRICH_SCOPE_PROP = "deferredEnrichScope";
+  public static final String TRANSFORM_MODE_HEADER = "X-Transform-Mode";
+  public static final String TRANSFORM_MODE_STREAMING = "streaming";
 }
 
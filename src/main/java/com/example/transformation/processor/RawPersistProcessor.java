@@ -1,8 +1,8 @@
 package com.example.transformation.processor;
 
+import com.example.transformation.id.IdGenerators;
 import com.example.transformation.persistence.PayloadPersistenceService;
 import java.util.Map;
-import java.util.UUID;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.springframework.beans.factory.ObjectProvider;
@@ -12,20 +12,24 @@ import org.springframework.stereotype.Component;
 @Component("persistRaw")
 public class RawPersistProcessor implements Processor {
   private final ObjectProvider<PayloadPersistenceService> persistenceService;
+  private final IdGenerators idGenerators;
   private final boolean persistenceEnabled;
 
   public RawPersistProcessor(
       ObjectProvider<PayloadPersistenceService> persistenceService,
+      IdGenerators idGenerators,
       @Value("${app.persistence.enabled:false}") boolean persistenceEnabled
   ) {
     this.persistenceService = persistenceService;
+    this.idGenerators = idGenerators;
     this.persistenceEnabled = persistenceEnabled;
   }
 
   @Override
   public void process(Exchange exchange) {
     Object body = exchange.getMessage().getBody();
-    String requestId = resolveRequestId(body);
+    String requestId = resolveRequestId(body,
+        exchange.getMessage().getHeader(ExchangeKeys.CARTRIDGE_ID_HEADER, String.class));
     exchange.getMessage().setHeader("X-Request-Id", requestId);
     if (persistenceEnabled) {
       PayloadPersistenceService svc = persistenceService.getIfAvailable();
@@ -36,7 +40,7 @@ public class RawPersistProcessor implements Processor {
   }
 
   @SuppressWarnings("unchecked")
-  private String resolveRequestId(Object body) {
+  private String resolveRequestId(Object body, String cartridgeId) {
     if (body instanceof Map<?, ?> m) {
       Object header = m.get("header");
       if (header instanceof Map<?, ?> h) {
@@ -63,6 +67,7 @@ public class RawPersistProcessor implements Processor {
         }
       }
     }
-    return UUID.randomUUID().toString();
+    // No business id: time-ordered id from the cartridge's generator
+    return idGenerators.forCartridge(cartridgeId).nextId();
   }
 }
@@ -0,0 +1,334 @@
+package com.example.transformation.processor;
+
+import com.example.transformation.cartridge.CartridgeException;
+import com.example.transformation.cartridge.ErrorCodes;
+import com.example.transformation.cartridge.InputCapture;
+import com.example.transformation.cartridge.MappingDefinition;
+import com.example.transformation.cartridge.MappingEngine;
+import com.example.transformation.cartridge.MappingLoader;
+import com.example.transformation.cartridge.ValidationResult;
+import com.example.transformation.config.model.ResolvedCartridgeContext;
+import com.example.transformation.enrich.EnrichmentConfig;
+import com.example.transformation.enrich.EnrichmentEngine;
+import com.example.transformation.enrich.EnrichmentLoader;
+import com.example.transformation.enrich.EnrichmentProgram;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streaming transform mode: Jackson token stream in, JsonGenerator out.
+ *
+ * Instead of binding the whole request to a Map, each record is read through an
+ * {@link InputCapture} that keeps only the fields the enrichment and mapping stages read.
+ * Enrichment then runs on that sparse tree and the mapped output is written straight to
+ * the generator ({@link MappingEngine#mapToOutput}).
+ *
+ * A top-level object produces a single mapped object, or the bulk response when it is a
+ * paymentData.txInf envelope (split as in {@link ValidateProcessor}). A top-level array is
+ * processed one element at a time and produces the same per-record envelope as the bulk
+ * endpoint. Persistence is not supported: both modes are refused when it is enabled.
+ *
+ * {@link #transformNdjson} is the constant-memory bulk form: records are read in windows of
+ * app.bulk.stream-window, each window is processed on the {@link BulkExecutor}, and its
+ * envelopes are written as NDJSON lines and flushed before the next window is read. Once the
+ * first window is out the response is committed, so later failures stay in the stream: a
+ * window the executor rejects or fails gets that error on each of its records, and input that
+ * stops parsing ends the stream with an error line for the record that could not be read.
+ */
+@Component
+public class StreamingTransformer {
+  public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+  // One reusable collector per worker thread for collect-all validation of NDJSON windows
+  private static final ThreadLocal<ValidationResult> VIOLATIONS = ThreadLocal.withInitial(ValidationResult::new);
+
+  // Read and normalized by EnrichProcessor after the cartridge rules
+  private static final String[] ENRICH_PROCESSOR_PATHS = {"$.currency", "$.bic"};
+
+  // Sections of a paymentData.txInf envelope, kept whole so its records can be split off
+  private static final String[] ENVELOPE_PATHS = {"$.header", "$.paymentData"};
+
+  private final MappingLoader mappingLoader;
+  private final EnrichmentLoader enrichmentLoader;
+  private final EnrichmentEngine enrichmentEngine;
+  private final EnrichProcessor enrichProcessor;
+  private final MappingEngine mappingEngine;
+  private final ObjectMapper objectMapper;
+  private final BulkExecutor bulkExecutor;
+  private final boolean collectAllErrors;
+  private final boolean persistenceEnabled;
+  private final int streamWindow;
+  private final ConcurrentHashMap<ResolvedCartridgeContext, InputCapture> captures = new ConcurrentHashMap<>(16);
+
+  public StreamingTransformer(
+      MappingLoader mappingLoader,
+      EnrichmentLoader enrichmentLoader,
+      EnrichmentEngine enrichmentEngine,
+      EnrichProcessor enrichProcessor,
+      MappingEngine mappingEngine,
+      ObjectMapper objectMapper,
+      BulkExecutor bulkExecutor,
+      @Value("${app.bulk.collect-all-errors:false}") boolean collectAllErrors,
+      @Value("${app.bulk.stream-window:256}") int streamWindow,
+      @Value("${app.persistence.enabled:false}") boolean persistenceEnabled
+  ) {
+    if (streamWindow <= 0) {
+      throw new IllegalArgumentException("app.bulk.stream-window must be positive");
+    }
+    this.mappingLoader = mappingLoader;
+    this.enrichmentLoader = enrichmentLoader;
+    this.enrichmentEngine = enrichmentEngine;
+    this.enrichProcessor = enrichProcessor;
+    this.mappingEngine = mappingEngine;
+    this.objectMapper = objectMapper;
+    this.bulkExecutor = bulkExecutor;
+    this.collectAllErrors = collectAllErrors;
+    this.streamWindow = streamWindow;
+    this.persistenceEnabled = persistenceEnabled;
+  }
+
+  /**
+   * Transforms the JSON document on {@code in} and writes the result to {@code out}.
+   * For a single object every failure is thrown before anything is written. A
+   * {@code paymentData.txInf} envelope is split into records like the route does
+   * ({@link ValidateProcessor}) and answered with the bulk response format.
+   * {@code headers} stand in for the exchange headers of the route (enrichment templates).
+   *
+   * @throws CartridgeException when payload persistence is enabled (not supported here)
+   */
+  public void transform(ResolvedCartridgeContext context, Map<String, Object> headers, InputStream in, OutputStream out)
+      throws IOException {
+    requireNoPersistence();
+    MappingDefinition def = mappingLoader.load(context.mappingPath());
+    InputCapture capture = captures.computeIfAbsent(context, c -> buildCapture(c, def));
+    EnrichmentProgram.Scope scope = enrichProcessor.newScope(context, headers);
+
+    try (JsonParser parser = objectMapper.createParser(in);
+        JsonGenerator gen = objectMapper.createGenerator(out)) {
+      JsonToken first = parser.nextToken();
+      if (first == JsonToken.START_OBJECT) {
+        Map<String, Object> root = capture.read(parser);
+        List<BulkRecord> records = ValidateProcessor.maybeExtractBulkRecords(root);
+        if (records != null) {
+          transformEnvelope(context, scope, def, records, gen);
+        } else {
+          gen.writeObject(transformRecord(context, scope, def, root, null));
+        }
+      } else if (first == JsonToken.START_ARRAY) {
+        transformArray(context, scope, def, capture, parser, gen);
+      } else {
+        throw new CartridgeException(ErrorCodes.code(ErrorCodes.REQUEST_BODY_TYPE), CartridgeException.ErrorType.FUNCTIONAL,
+            "Expected JSON object or array but got: " + first, null, "VALIDATION");
+      }
+    }
+  }
+
+  private void transformArray(ResolvedCartridgeContext context, EnrichmentProgram.Scope scope, MappingDefinition def, InputCapture capture,
+      JsonParser parser, JsonGenerator gen) throws IOException {
+    gen.writeStartArray();
+    ValidationResult violations = collectAllErrors ? new ValidationResult() : null;
+    int index = 0;
+    JsonToken t;
+    while ((t = parser.nextToken()) != JsonToken.END_ARRAY) {
+      BulkRecord record;
+      if (t != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        record = new BulkRecord(index, null);
+        record.setError(BulkError.functional("Expected JSON object at index " + index + " but got: " + t, null, "VALIDATION"));
+      } else {
+        record = new BulkRecord(index, capture.read(parser));
+        transformInto(context, scope, def, record, violations);
+      }
+      record.writeTo(gen);
+      index++;
+    }
+    gen.writeEndArray();
+  }
+
+  /**
+   * The records of an envelope read as one object (the capture keeps the whole envelope).
+   */
+  private void transformEnvelope(ResolvedCartridgeContext context, EnrichmentProgram.Scope scope, MappingDefinition def,
+      List<BulkRecord> records, JsonGenerator gen) throws IOException {
+    gen.writeStartArray();
+    ValidationResult violations = collectAllErrors ? new ValidationResult() : null;
+    for (BulkRecord record : records) {
+      if (!record.hasError()) {
+        transformInto(context, scope, def, record, violations);
+      }
+      record.writeTo(gen);
+    }
+    gen.writeEndArray();
+  }
+
+  /**
+   * Transforms the record's input into its output, or records its error(s); the input is
+   * released afterwards. {@code violations} is null unless errors are collected.
+   */
+  private void transformInto(ResolvedCartridgeContext context, EnrichmentProgram.Scope scope, MappingDefinition def,
+      BulkRecord record, ValidationResult violations) {
+    try {
+      if (violations != null) {
+        violations.clear();
+      }
+      Object output = transformRecord(context, scope, def, record.getInput(), violations);
+      if (violations == null || violations.isValid()) {
+        record.setOutput(output);
+        record.setContentType("application/json");
+      } else {
+        record.setErrors(BulkError.from(violations));
+      }
+    } catch (CartridgeException e) {
+      record.setError(BulkError.from(e));
+    }
+    record.setInput(null);
+  }
+
+  /**
+   * The persistRaw/persistTransformed route steps have no streaming equivalent (there is no
+   * bound payload to store), so streaming is refused rather than silently not persisting.
+   */
+  private void requireNoPersistence() {
+    if (persistenceEnabled) {
+      throw new CartridgeException(ErrorCodes.code(ErrorCodes.REQUEST_STREAMING_UNSUPPORTED), CartridgeException.ErrorType.FUNCTIONAL,
+          "Streaming transforms are not available while payload persistence is enabled (app.persistence.enabled)",
+          null, "VALIDATION");
+    }
+  }
+
+  /**
+   * Transforms NDJSON (one object per line) or a JSON array of objects from {@code in} and
+   * writes one bulk envelope per record to {@code out} as NDJSON, in input order. At most
+   * one window of records is held in memory; the output is flushed after every window.
+   * Malformed input ends the output with one failed envelope at the index that could not be
+   * read, after the envelopes of every record read before it.
+   */
+  public void transformNdjson(ResolvedCartridgeContext context, Map<String, Object> headers, InputStream in,
+      OutputStream out) throws IOException {
+    requireNoPersistence();
+    MappingDefinition def = mappingLoader.load(context.mappingPath());
+    InputCapture capture = captures.computeIfAbsent(context, c -> buildCapture(c, def));
+    EnrichmentProgram.Scope scope = enrichProcessor.newScope(context, headers);
+
+    try (JsonParser parser = objectMapper.createParser(in);
+        JsonGenerator gen = objectMapper.createGenerator(out)) {
+      gen.setRootValueSeparator(null);
+      List<BulkRecord> window = new ArrayList<>(streamWindow);
+      int index = 0;
+      try {
+        JsonToken t = parser.nextToken();
+        // A top-level array is read element by element; otherwise every root value is a record
+        boolean array = t == JsonToken.START_ARRAY;
+        if (array) {
+          t = parser.nextToken();
+        }
+        while (t != null && t != JsonToken.END_ARRAY) {
+          BulkRecord record;
+          if (t == JsonToken.START_OBJECT) {
+            record = new BulkRecord(index, capture.read(parser));
+          } else {
+            parser.skipChildren();
+            record = new BulkRecord(index, null);
+            record.setError(BulkError.functional("Expected JSON object at index " + index + " but got: " + t, null, "VALIDATION"));
+          }
+          window.add(record);
+          index++;
+          if (window.size() == streamWindow) {
+            flushWindow(context, scope, def, window, gen);
+          }
+          t = parser.nextToken();
+        }
+      } catch (StreamReadException e) {
+        // Earlier windows may already be sent: finish the records read so far, then say where
+        // the input broke instead of cutting the response short
+        flushWindow(context, scope, def, window, gen);
+        BulkRecord unreadable = new BulkRecord(index, null);
+        unreadable.setError(BulkError.functional("Malformed JSON at index " + index + ": " + e.getOriginalMessage(),
+            null, "VALIDATION"));
+        unreadable.writeTo(gen);
+        gen.writeRaw('\n');
+        return;
+      }
+      flushWindow(context, scope, def, window, gen);
+    }
+  }
+
+  private void flushWindow(ResolvedCartridgeContext context, EnrichmentProgram.Scope scope, MappingDefinition def,
+      List<BulkRecord> window, JsonGenerator gen) throws IOException {
+    if (window.isEmpty()) {
+      return;
+    }
+    try {
+      bulkExecutor.run(context.cartridgeId(), window, record -> {
+        if (!record.hasError()) {
+          transformInto(context, scope, def, record, collectAllErrors ? VIOLATIONS.get() : null);
+        }
+      }, "TRANSFORM");
+    } catch (CartridgeException e) {
+      // Rejected or failed window: earlier windows may be out already, so every record of
+      // this one still gets its envelope (records with their own error keep it)
+      BulkError error = BulkError.from(e);
+      for (BulkRecord record : window) {
+        if (!record.hasError()) {
+          record.setOutput(null);
+          record.setError(error);
+        }
+      }
+    }
+    for (BulkRecord record : window) {
+      record.writeTo(gen);
+      gen.writeRaw('\n');
+    }
+    gen.flush();
+    window.clear();
+  }
+
+  private Object transformRecord(ResolvedCartridgeContext context, EnrichmentProgram.Scope scope, MappingDefinition def, Map<String, Object> input,
+      ValidationResult violations) {
+    Map<String, Object> enriched = enrichProcessor.applyEnrichment(context, input, scope);
+    return mappingEngine.mapToOutput(enriched, def, violations);
+  }
+
+  private InputCapture buildCapture(ResolvedCartridgeContext context, MappingDefinition def) {
+    Set<String> paths = new LinkedHashSet<>();
+    if (context.enrichPath() != null) {
+      Optional<EnrichmentConfig> cfg = enrichmentLoader.loadOptional(context.enrichPath());
+      if (cfg.isPresent()) {
+        Set<String> enrichPaths = enrichmentEngine.inputPaths(cfg.get());
+        if (enrichPaths == null) {
+          return InputCapture.all();
+        }
+        paths.addAll(enrichPaths);
+      }
+    }
+    for (String p : ENRICH_PROCESSOR_PATHS) {
+      paths.add(p);
+    }
+    for (String p : ENVELOPE_PATHS) {
+      paths.add(p);
+    }
+    if (def.mappings != null) {
+      for (MappingDefinition.MappingRule rule : def.mappings) {
+        if (rule.source != null && !rule.source.isBlank()) {
+          paths.add(rule.source);
+        }
+      }
+    }
+    return InputCapture.of(paths);
+  }
+}
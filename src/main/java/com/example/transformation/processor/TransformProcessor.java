@@ -5,9 +5,11 @@ import com.example.transformation.cartridge.ErrorCodes;
 import com.example.transformation.cartridge.JsonMappingEngine;
 import com.example.transformation.cartridge.MappingDefinition;
 import com.example.transformation.cartridge.MappingEngine;
-import java.util.ArrayList;
+import com.example.transformation.cartridge.ValidationResult;
+import com.example.transformation.config.model.ResolvedCartridgeContext;
+import com.example.transformation.enrich.EnrichmentProgram;
 import java.util.List;
-import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,20 +18,37 @@ import org.springframework.stereotype.Component;
 /**
  * Transform processor for CJSON to API transformations.
  * Supports both single and bulk request processing.
+ *
+ * Fused bulk pipeline (app.bulk.pipeline=fused): when {@link EnrichProcessor} deferred the
+ * enrichment of a bulk request, each record is enriched, validated and mapped in a single
+ * task, so it stays on one worker and there is no barrier between the two stages.
+ *
+ * The bulk response mode (X-Bulk-Response, see {@link BulkResponseMode}) decides whether
+ * successful outputs are kept at all; with payload persistence enabled they always are.
  */
 @Component("transform")
 public class TransformProcessor implements Processor {
 
+    // One reusable collector per worker thread for collect-all bulk validation
+    private static final ThreadLocal<ValidationResult> VIOLATIONS = ThreadLocal.withInitial(ValidationResult::new);
+
     private final JsonMappingEngine jsonEngine;
-    private final int bulkParallelism;
-    private final ForkJoinPool bulkPool;
+    private final EnrichProcessor enrichProcessor;
+    private final BulkExecutor bulkExecutor;
+    private final boolean collectAllErrors;
+    private final boolean persistenceEnabled;
 
     public TransformProcessor(
             JsonMappingEngine jsonEngine,
-            @Value("${app.bulk.parallelism:0}") int bulkParallelism) {
+            EnrichProcessor enrichProcessor,
+            BulkExecutor bulkExecutor,
+            @Value("${app.bulk.collect-all-errors:false}") boolean collectAllErrors,
+            @Value("${app.persistence.enabled:false}") boolean persistenceEnabled) {
         this.jsonEngine = jsonEngine;
-        this.bulkParallelism = bulkParallelism;
-        this.bulkPool = (bulkParallelism > 1) ? new ForkJoinPool(bulkParallelism) : null;
+        this.enrichProcessor = enrichProcessor;
+        this.collectAllErrors = collectAllErrors;
+        this.persistenceEnabled = persistenceEnabled;
+        this.bulkExecutor = bulkExecutor;
     }
 
     @Override
@@ -49,15 +68,18 @@ public class TransformProcessor implements Processor {
         if (input instanceof List<?> list) {
             @SuppressWarnings("unchecked")
             List<BulkRecord> records = (List<BulkRecord>) list;
-            processBulk(records, def);
+            ResolvedCartridgeContext context = exchange.getProperty(
+                    ExchangeKeys.RESOLVED_CONTEXT_PROP, ResolvedCartridgeContext.class);
+            String cartridgeId = (context != null) ? context.cartridgeId() : def.cartridgeId;
+            BulkResponseMode mode = responseMode(exchange);
+            // persistTransformed stores every output whatever the response mode
+            boolean keepOutputs = mode.returnsOutputs() || persistenceEnabled;
+            processBulk(cartridgeId, records, def, deferredEnrichment(exchange, context), keepOutputs);
 
-            List<Object> results = new ArrayList<>(records.size());
-            for (BulkRecord record : records) {
-                results.add(record.toResponse());
-            }
+            // Serialized record by record by the HTTP message converter (see BulkResponse)
             exchange.getMessage().setHeader(ExchangeKeys.BULK_HEADER, true);
             exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, "application/json");
-            exchange.getMessage().setBody(results);
+            exchange.getMessage().setBody(new BulkResponse(records, mode));
             return;
         }
 
@@ -67,32 +89,73 @@ public class TransformProcessor implements Processor {
         exchange.getMessage().setBody(result.body());
     }
 
-    private void processBulk(List<BulkRecord> records, MappingDefinition def) {
-        runInParallel(records, record -> {
+    private static BulkResponseMode responseMode(Exchange exchange) {
+        Object mode = exchange.getMessage().getHeader(ExchangeKeys.BULK_RESPONSE_HEADER);
+        if (mode instanceof BulkResponseMode m) {
+            return m;
+        }
+        return BulkResponseMode.parse(mode == null ? null : mode.toString());
+    }
+
+    /**
+     * Per-record enrichment left to this processor by the fused bulk pipeline, or null.
+     */
+    private Consumer<BulkRecord> deferredEnrichment(Exchange exchange, ResolvedCartridgeContext context) {
+        EnrichmentProgram.Scope scope = exchange.getProperty(
+                ExchangeKeys.DEFERRED_ENRICH_SCOPE_PROP, EnrichmentProgram.Scope.class);
+        if (scope == null) {
+            return null;
+        }
+        return record -> enrichProcessor.enrichRecord(context, record, scope);
+    }
+
+    /**
+     * Transforms every record. Without {@code keepOutputs} (errors-only / summary responses)
+     * successful outputs are dropped and each record's input released once it is processed,
+     * so only the errors stay referenced until the response is written.
+     */
+    private void processBulk(String cartridgeId, List<BulkRecord> records, MappingDefinition def,
+            Consumer<BulkRecord> enrich, boolean keepOutputs) {
+        if (collectAllErrors) {
+            bulkExecutor.run(cartridgeId, records, record -> {
+                if (enrich != null) {
+                    enrich.accept(record);
+                }
+                if (!record.hasError()) {
+                    ValidationResult violations = VIOLATIONS.get();
+                    violations.clear();
+                    MappingEngine.Result result = jsonEngine.transform(record.getInput(), def, violations);
+                    if (!violations.isValid()) {
+                        record.setErrors(BulkError.from(violations));
+                    } else if (keepOutputs) {
+                        record.setOutput(result.body());
+                        record.setContentType(result.contentType());
+                    }
+                }
+                if (!keepOutputs) {
+                    record.setInput(null);
+                }
+            }, "TRANSFORM");
+            return;
+        }
+        bulkExecutor.run(cartridgeId, records, record -> {
+            if (enrich != null) {
+                enrich.accept(record);
+            }
             if (!record.hasError()) {
                 try {
                     MappingEngine.Result result = jsonEngine.transform(record.getInput(), def);
-                    record.setOutput(result.body());
-                    record.setContentType(result.contentType());
+                    if (keepOutputs) {
+                        record.setOutput(result.body());
+                        record.setContentType(result.contentType());
+                    }
                 } catch (CartridgeException e) {
                     record.setError(BulkError.from(e));
                 }
             }
-        });
-    }
-
-    private void runInParallel(List<BulkRecord> records, java.util.function.Consumer<BulkRecord> work) {
-        if (bulkParallelism <= 1) {
-            records.forEach(work);
-            return;
-        }
-        try {
-            bulkPool.submit(() -> records.parallelStream().forEach(work)).get();
-        } catch (Exception e) {
-            throw new CartridgeException(
-                    ErrorCodes.code(ErrorCodes.GENERIC_TECHNICAL),
-                    CartridgeException.ErrorType.TECHNICAL,
-                    "Bulk parallel transform failed", e, null, "TRANSFORM");
-        }
+            if (!keepOutputs) {
+                record.setInput(null);
+            }
+        }, "TRANSFORM");
     }
 }
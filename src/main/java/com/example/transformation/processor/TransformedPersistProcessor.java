@@ -30,6 +30,10 @@ public class TransformedPersistProcessor implements Processor {
     if (persistenceEnabled) {
       PayloadPersistenceService svc = persistenceService.getIfAvailable();
       if (svc != null) {
+        // Every transformed record is stored, whatever the bulk response mode
+        if (body instanceof BulkResponse bulk && bulk.mode() != BulkResponseMode.FULL) {
+          body = new BulkResponse(bulk.records(), BulkResponseMode.FULL);
+        }
         svc.storeTransformed(requestId, body, "TRANSFORMED");
       }
     }
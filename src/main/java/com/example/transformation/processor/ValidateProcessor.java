@@ -1,6 +1,7 @@
 package com.example.transformation.processor;
 
 import com.example.transformation.cartridge.CartridgeException;
+import com.example.transformation.cartridge.EnvelopeRecord;
 import com.example.transformation.cartridge.ErrorCodes;
 import com.example.transformation.cartridge.MappingDefinition;
 import com.example.transformation.cartridge.MappingLoader;
@@ -78,8 +79,12 @@ public class ValidateProcessor implements Processor {
     exchange.setProperty(ExchangeKeys.MAPPING_DEF_PROP, def);
   }
 
+  /**
+   * Records of a {@code paymentData.txInf} envelope, or null when {@code root} is not one.
+   * Also used by the streaming mode so both paths split envelopes the same way.
+   */
   @SuppressWarnings("unchecked")
-  private List<BulkRecord> maybeExtractBulkRecords(Map<?, ?> root) {
+  static List<BulkRecord> maybeExtractBulkRecords(Map<?, ?> root) {
     Object paymentDataObj = root.get("paymentData");
     if (!(paymentDataObj instanceof Map<?, ?> paymentData)) {
       return null;
@@ -89,20 +94,18 @@ public class ValidateProcessor implements Processor {
       return null;
     }
 
-    Map<String, Object> header = (root.get("header") instanceof Map<?, ?> h) ? (Map<String, Object>) h : null;
-    Map<String, Object> grpHdr = firstMapFromList(paymentData.get("grpHdr"));
-    Map<String, Object> bulk = firstMapFromList(paymentData.get("bulk"));
+    // Shared by every record of the request (read-only, not copied per record)
+    Map<String, Map<String, Object>> envelope = new LinkedHashMap<>(8);
+    envelope.put("header", (root.get("header") instanceof Map<?, ?> h) ? (Map<String, Object>) h : null);
+    envelope.put("grpHdr", firstMapFromList(paymentData.get("grpHdr")));
+    envelope.put("bulk", firstMapFromList(paymentData.get("bulk")));
+    Map<String, Object> sections = EnvelopeRecord.sections(envelope);
 
     List<BulkRecord> records = new ArrayList<>(txInfList.size());
     for (int i = 0; i < txInfList.size(); i++) {
       Object item = txInfList.get(i);
       if (item instanceof Map<?, ?> txInf) {
-        Map<String, Object> merged = new LinkedHashMap<>();
-        merged.putAll((Map<String, Object>) txInf);
-        if (header != null) merged.put("header", header);
-        if (grpHdr != null) merged.put("grpHdr", grpHdr);
-        if (bulk != null) merged.put("bulk", bulk);
-        records.add(new BulkRecord(i, merged));
+        records.add(new BulkRecord(i, new EnvelopeRecord((Map<String, Object>) txInf, sections)));
       } else {
         BulkRecord record = new BulkRecord(i, null);
         record.setError(BulkError.functional(
@@ -117,7 +120,7 @@ public class ValidateProcessor implements Processor {
   }
 
   @SuppressWarnings("unchecked")
-  private Map<String, Object> firstMapFromList(Object listObj) {
+  private static Map<String, Object> firstMapFromList(Object listObj) {
     if (!(listObj instanceof List<?> list) || list.isEmpty()) {
       return null;
     }
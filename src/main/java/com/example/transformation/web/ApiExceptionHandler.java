@@ -19,6 +19,10 @@ public class ApiExceptionHandler {
     HttpStatus status = (e.getType() == ErrorType.TECHNICAL)
         ? HttpStatus.INTERNAL_SERVER_ERROR
         : HttpStatus.BAD_REQUEST;
+    if (ErrorCodes.code(ErrorCodes.BULK_REJECTED).equals(e.getCode())) {
+      // Saturated bulk executor: retryable
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ApiError.from(e));
+    }
     if (status.is5xxServerError()) {
       log.error("Technical cartridge error", e);
     }
@@ -1,8 +1,15 @@
 package com.example.transformation.web;
 
+import com.example.transformation.cartridge.CartridgeException;
 import com.example.transformation.config.CartridgeResolver;
 import com.example.transformation.config.model.ResolvedCartridgeContext;
+import com.example.transformation.processor.BulkResponseMode;
 import com.example.transformation.processor.ExchangeKeys;
+import com.example.transformation.processor.StreamingTransformer;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.camel.Exchange;
@@ -16,6 +23,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -24,10 +32,14 @@ import org.springframework.web.bind.annotation.RestController;
  * Endpoints:
  * - POST /api/transform/{cartridgeId} - Single request
  * - POST /api/transform/{cartridgeId}/bulk - Bulk request
+ * - POST /api/transform/{cartridgeId}/stream - Bulk request as NDJSON (or JSON array) in, NDJSON out
  * 
  * Headers:
  * - X-Currency (optional): Currency code for currency-specific templates (USD, EUR, INR)
  * - X-Direction (optional): Flow direction (outbound/inbound), defaults to outbound
+ * - X-Correlation-Id (optional): Copied to the exchange (usable in enrichment templates)
+ * - X-Transform-Mode (optional): "streaming" to transform from the token stream without binding the body
+ * - X-Bulk-Response (optional, bulk): full (default), errors-only or summary
  */
 @RestController
 @RequestMapping("/api/transform")
@@ -37,10 +49,15 @@ public class TransformationController {
 
     private final ProducerTemplate producerTemplate;
     private final CartridgeResolver cartridgeResolver;
+    private final StreamingTransformer streamingTransformer;
 
-    public TransformationController(ProducerTemplate producerTemplate, CartridgeResolver cartridgeResolver) {
+    public TransformationController(
+            ProducerTemplate producerTemplate,
+            CartridgeResolver cartridgeResolver,
+            StreamingTransformer streamingTransformer) {
         this.producerTemplate = producerTemplate;
         this.cartridgeResolver = cartridgeResolver;
+        this.streamingTransformer = streamingTransformer;
     }
 
     /**
@@ -52,6 +69,7 @@ public class TransformationController {
             @PathVariable String cartridgeId,
             @RequestHeader(value = "X-Currency", required = false) String currency,
             @RequestHeader(value = "X-Direction", required = false, defaultValue = "outbound") String direction,
+            @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId,
             @RequestBody Map<String, Object> body) {
 
         ResolvedCartridgeContext context = cartridgeResolver.resolve(cartridgeId, currency, direction);
@@ -62,6 +80,9 @@ public class TransformationController {
             e.getMessage().setHeader(ExchangeKeys.CARTRIDGE_ID_HEADER, cartridgeId);
             e.getMessage().setHeader(ExchangeKeys.CURRENCY_HEADER, currency);
             e.getMessage().setHeader(ExchangeKeys.DIRECTION_HEADER, direction);
+            if (correlationId != null) {
+                e.getMessage().setHeader(ExchangeKeys.CORRELATION_ID_HEADER, correlationId);
+            }
         });
 
         // Check for exceptions in the exchange
@@ -78,15 +99,22 @@ public class TransformationController {
 
     /**
      * Bulk request transformation.
-     * POST /api/transform/{cartridgeId}/bulk
+     * POST /api/transform/{cartridgeId}/bulk[?response=full|errors-only|summary]
+     *
+     * The response mode can also be given as X-Bulk-Response (see BulkResponseMode).
      */
     @PostMapping(value = "/{cartridgeId}/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> transformBulk(
             @PathVariable String cartridgeId,
             @RequestHeader(value = "X-Currency", required = false) String currency,
             @RequestHeader(value = "X-Direction", required = false, defaultValue = "outbound") String direction,
+            @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId,
+            @RequestHeader(value = "X-Bulk-Response", required = false) String responseHeader,
+            @RequestParam(value = "response", required = false) String responseParam,
             @RequestBody List<Map<String, Object>> body) {
 
+        // Rejected before the route runs; the query parameter wins over the header
+        BulkResponseMode responseMode = BulkResponseMode.parse(responseParam != null ? responseParam : responseHeader);
         ResolvedCartridgeContext context = cartridgeResolver.resolve(cartridgeId, currency, direction);
 
         Exchange out = producerTemplate.request(context.directEndpoint(), e -> {
@@ -94,12 +122,92 @@ public class TransformationController {
             e.getMessage().setHeader(ExchangeKeys.CARTRIDGE_ID_HEADER, cartridgeId);
             e.getMessage().setHeader(ExchangeKeys.CURRENCY_HEADER, currency);
             e.getMessage().setHeader(ExchangeKeys.DIRECTION_HEADER, direction);
+            if (correlationId != null) {
+                e.getMessage().setHeader(ExchangeKeys.CORRELATION_ID_HEADER, correlationId);
+            }
             e.getMessage().setHeader(ExchangeKeys.BULK_HEADER, true);
+            e.getMessage().setHeader(ExchangeKeys.BULK_RESPONSE_HEADER, responseMode);
         });
 
+        // Request-level failures (e.g. bulk executor saturated) go to ApiExceptionHandler
+        if (out.getException() instanceof CartridgeException ce) {
+            throw ce;
+        }
+
         return buildResponse(out);
     }
 
+    /**
+     * Streaming transformation, selected with X-Transform-Mode: streaming.
+     * POST /api/transform/{cartridgeId} or /api/transform/{cartridgeId}/bulk
+     *
+     * The body is read token by token and the mapped output written straight to the response;
+     * a JSON array is processed one record at a time. Differences from the route:
+     * - a paymentData.txInf envelope is split into records as in the route (same bulk
+     *   response), but the whole envelope is then held in memory
+     * - runs enrichment and mapping only: there is no persistRaw/persistTransformed step, so
+     *   the request is refused (400 FUNC-REQ-STREAMING-UNSUPPORTED) while
+     *   app.persistence.enabled is true, and no X-Request-Id is generated
+     * - X-Bulk-Response is ignored; bulk results are always returned in full
+     */
+    @PostMapping(value = {"/{cartridgeId}", "/{cartridgeId}/bulk"},
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            headers = ExchangeKeys.TRANSFORM_MODE_HEADER + "=" + ExchangeKeys.TRANSFORM_MODE_STREAMING)
+    public void transformStreaming(
+            @PathVariable String cartridgeId,
+            @RequestHeader(value = "X-Currency", required = false) String currency,
+            @RequestHeader(value = "X-Direction", required = false, defaultValue = "outbound") String direction,
+            @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId,
+            InputStream body,
+            HttpServletResponse response) throws IOException {
+
+        ResolvedCartridgeContext context = cartridgeResolver.resolve(cartridgeId, currency, direction);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        streamingTransformer.transform(context, streamHeaders(cartridgeId, currency, direction, correlationId),
+                body, response.getOutputStream());
+    }
+
+    /**
+     * Streaming bulk transformation with constant memory.
+     * POST /api/transform/{cartridgeId}/stream
+     *
+     * Accepts NDJSON (one JSON object per line) or a JSON array. Records are parsed
+     * incrementally and processed in bounded windows; each window's results are written
+     * back as NDJSON lines (the bulk envelope, in input order) and flushed as soon as they
+     * are ready. Like the streaming mode, runs enrichment and mapping only (and is refused
+     * while persistence is enabled). Failures after the first window are reported in the
+     * stream: a rejected or failed window yields an error envelope per record, and malformed
+     * input a final error envelope.
+     */
+    @PostMapping(value = "/{cartridgeId}/stream",
+            consumes = {StreamingTransformer.NDJSON_MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE},
+            produces = StreamingTransformer.NDJSON_MEDIA_TYPE)
+    public void transformNdjson(
+            @PathVariable String cartridgeId,
+            @RequestHeader(value = "X-Currency", required = false) String currency,
+            @RequestHeader(value = "X-Direction", required = false, defaultValue = "outbound") String direction,
+            @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId,
+            InputStream body,
+            HttpServletResponse response) throws IOException {
+
+        ResolvedCartridgeContext context = cartridgeResolver.resolve(cartridgeId, currency, direction);
+        response.setContentType(StreamingTransformer.NDJSON_MEDIA_TYPE);
+        streamingTransformer.transformNdjson(context, streamHeaders(cartridgeId, currency, direction, correlationId),
+                body, response.getOutputStream());
+    }
+
+    private static Map<String, Object> streamHeaders(String cartridgeId, String currency, String direction,
+            String correlationId) {
+        Map<String, Object> headers = new HashMap<>(8);
+        headers.put(ExchangeKeys.CARTRIDGE_ID_HEADER, cartridgeId);
+        headers.put(ExchangeKeys.CURRENCY_HEADER, currency);
+        headers.put(ExchangeKeys.DIRECTION_HEADER, direction);
+        if (correlationId != null) {
+            headers.put(ExchangeKeys.CORRELATION_ID_HEADER, correlationId);
+        }
+        return headers;
+    }
+
     private ResponseEntity<?> buildResponse(Exchange out) {
         Object responseBody = out.getMessage().getBody();
         String contentType = out.getMessage().getHeader(Exchange.CONTENT_TYPE, String.class);